@@ -0,0 +1,134 @@
+package VirtualDoctor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/**
+ * This class represents a booked appointment: a patient seeing a doctor at a date and time.
+ * It also converts appointments to and from the lines stored in the appointments file,
+ * e.g. "Patient: Ann, Doctor: Dr. Babu, Date: 2024-12-02, Time: 9:00 AM".
+ */
+public class Appointment {
+    static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("h:mm a", Locale.US);
+
+    private final String patientName;
+    private final String doctor;
+    private final LocalDate date;
+    private final LocalTime time;
+
+    /**
+     * Constructor to initialize an appointment.
+     *
+     * @param patientName the patient the appointment is for
+     * @param doctor the doctor the patient is seeing
+     * @param date the date of the appointment
+     * @param time the start time of the appointment
+     */
+    public Appointment(String patientName, String doctor, LocalDate date, LocalTime time) {
+        this.patientName = patientName;
+        this.doctor = doctor;
+        this.date = date;
+        this.time = time;
+    }
+
+    /**
+     * Gets the name of the patient.
+     *
+     * @return the patient's name
+     */
+    public String getPatientName() {
+        return patientName;
+    }
+
+    /**
+     * Gets the doctor the patient is seeing.
+     *
+     * @return the doctor's name
+     */
+    public String getDoctor() {
+        return doctor;
+    }
+
+    /**
+     * Gets the date of the appointment.
+     *
+     * @return the appointment date
+     */
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     * Gets the start time of the appointment.
+     *
+     * @return the appointment time
+     */
+    public LocalTime getTime() {
+        return time;
+    }
+
+    /**
+     * Gets the date and time the appointment starts.
+     *
+     * @return the appointment start
+     */
+    public LocalDateTime getStart() {
+        return LocalDateTime.of(date, time);
+    }
+
+    /**
+     * Formats the appointment as a line of the appointments file.
+     *
+     * @return the appointment line, without a line separator
+     */
+    public String format() {
+        return "Patient: " + patientName + ", Doctor: " + doctor + ", Date: " + date + ", Time: " + TIME_FORMAT.format(time);
+    }
+
+    @Override
+    public String toString() {
+        return format();
+    }
+
+    /**
+     * Parses a line of the appointments file.
+     *
+     * @param line the appointment line
+     * @return the appointment, or null if the line is not a dated appointment
+     */
+    public static Appointment parse(String line) {
+        String patient = field(line, "Patient: ");
+        String doctor = field(line, "Doctor: ");
+        String date = field(line, "Date: ");
+        String time = field(line, "Time: ");
+        if (patient == null || doctor == null || date == null || time == null) {
+            return null; // Lines written before appointments had dates cannot be placed in the calendar
+        }
+        try {
+            return new Appointment(patient, doctor, LocalDate.parse(date), LocalTime.parse(time, TIME_FORMAT));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Extracts a field from an appointment line.
+     *
+     * @param line the appointment line
+     * @param label the field label, including the colon and space
+     * @return the field value, or null if the line has no such field
+     */
+    static String field(String line, String label) {
+        int start = line.indexOf(label);
+        if (start < 0) {
+            return null;
+        }
+        start += label.length();
+        int end = line.indexOf(", ", start);
+        return end < 0 ? line.substring(start) : line.substring(start, end);
+    }
+}
@@ -0,0 +1,489 @@
+package VirtualDoctor;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * This class is the appointment calendar shared by the receptionist and the doctors.
+ * Appointments are keyed by doctor, date and time slot, and are kept in a SlotOccupancyIndex so that
+ * booking, availability checks and free-slot searches never read the appointments file.
+ * Every booking is appended to the appointments file, which is replayed when the calendar is created.
+ * Booked appointments are also kept in an AppointmentIndex, so they can be listed by doctor, patient
+ * or time range without reading the file.
+ * Appointments can be made on working days (Monday to Friday) in the fixed daily time slots.
+ * <p>
+ * For patients without a preferred doctor, a priority queue holds each doctor's next free slot, so the
+ * earliest slot across the whole roster is found without checking every doctor. The queue is updated on
+ * every booking and cancellation; entries that have gone stale in between are fixed when they reach the head.
+ */
+public class AppointmentCalendar {
+    private static final String APPOINTMENTS_FILE = "appointments.txt";
+    private static final String CANCELLED_PREFIX = "Cancelled - ";
+    private static final List<String> DOCTORS = List.of("Dr. John Smith", "Dr. Sarah Lee", "Dr. Banini", "Dr. Babu");
+    private static final List<String> TIME_SLOTS = List.of("9:00 AM", "11:00 AM", "1:00 PM", "3:00 PM", "5:00 PM");
+
+    private final List<LocalTime> slotTimes = new ArrayList<>();
+    private final SlotOccupancyIndex occupancy = new SlotOccupancyIndex(DOCTORS, TIME_SLOTS.size());
+    private final AppointmentIndex appointmentIndex = new AppointmentIndex();
+    private final String appointmentsFile;
+    private final ReminderScheduler reminders; // Told about every booking and cancellation, or null for none
+    private final Object appointmentLogLock = new Object();
+    private FileOutputStream appointmentLog; // Kept open so each booking is a single append
+    private final PriorityQueue<NextFreeSlot> nextFreeSlots = new PriorityQueue<>(); // Guarded by itself
+    private final Map<String, LocalDateTime> nextFreeByDoctor = new HashMap<>(); // Current queue entry per doctor
+
+    /**
+     * Constructor to create the calendar from the appointments file, scheduling reminders for new bookings.
+     *
+     * @param reminders the reminder scheduler to tell about bookings and cancellations
+     */
+    public AppointmentCalendar(ReminderScheduler reminders) {
+        this(APPOINTMENTS_FILE, reminders);
+    }
+
+    /**
+     * Constructor to create the calendar and load the booked appointments from the given file.
+     *
+     * @param appointmentsFile the appointments file
+     */
+    public AppointmentCalendar(String appointmentsFile) {
+        this(appointmentsFile, null);
+    }
+
+    /**
+     * Constructor to create the calendar from the given file, scheduling reminders for new bookings.
+     * Appointments already in the file are not passed on; the scheduler rebuilds its reminders from the file itself.
+     *
+     * @param appointmentsFile the appointments file
+     * @param reminders the reminder scheduler to tell about bookings and cancellations, or null for none
+     */
+    public AppointmentCalendar(String appointmentsFile, ReminderScheduler reminders) {
+        this.appointmentsFile = appointmentsFile;
+        this.reminders = reminders;
+        for (String slot : TIME_SLOTS) {
+            slotTimes.add(LocalTime.parse(slot, Appointment.TIME_FORMAT));
+        }
+        load();
+        LocalDateTime now = LocalDateTime.now();
+        for (String doctor : DOCTORS) {
+            updateNextFreeSlot(doctor, firstFreeSlot(doctor, now));
+        }
+    }
+
+    /**
+     * Gets the doctors that can be booked.
+     *
+     * @return the doctors' names
+     */
+    public List<String> getDoctors() {
+        return DOCTORS;
+    }
+
+    /**
+     * Gets the daily time slots, as shown to users.
+     *
+     * @return the time slot labels, e.g. "9:00 AM"
+     */
+    public List<String> getTimeSlots() {
+        return TIME_SLOTS;
+    }
+
+    /**
+     * Gets the next working days starting today, for users to choose from.
+     *
+     * @param count the number of days
+     * @return the upcoming working days
+     */
+    public List<LocalDate> upcomingWorkingDays(int count) {
+        List<LocalDate> days = new ArrayList<>(count);
+        LocalDate day = LocalDate.now();
+        while (days.size() < count) {
+            if (isWorkingDay(day)) {
+                days.add(day);
+            }
+            day = day.plusDays(1);
+        }
+        return days;
+    }
+
+    /**
+     * Checks whether a doctor is free at the given date and time slot.
+     *
+     * @param doctor the doctor
+     * @param date the date
+     * @param time the start of the time slot
+     * @return true if the slot exists, has not started yet and is free, false otherwise
+     */
+    public boolean isAvailable(String doctor, LocalDate date, LocalTime time) {
+        int slot = slotTimes.indexOf(time);
+        return slot >= 0 && DOCTORS.contains(doctor) && isWorkingDay(date) && !hasPassed(LocalDateTime.of(date, time))
+                && !occupancy.isBooked(doctor, date, slot);
+    }
+
+    /**
+     * Checks whether a time has already passed, so a slot starting then can no longer be booked.
+     *
+     * @param start the start of the slot
+     * @return true if the slot does not start in the future
+     */
+    public boolean hasPassed(LocalDateTime start) {
+        return !start.isAfter(LocalDateTime.now());
+    }
+
+    /**
+     * Books an appointment. The slot is reserved with one atomic compare-and-set and then logged to the
+     * appointments file; if the log write fails the reservation is released. This is safe to call from
+     * several terminals at once and never double-books a slot.
+     *
+     * @param appointment the appointment to book
+     * @return true if the appointment was booked, false if the slot is taken, invalid, in the past or could not be saved
+     */
+    public boolean book(Appointment appointment) {
+        int slot = slotTimes.indexOf(appointment.getTime());
+        if (slot < 0 || !isWorkingDay(appointment.getDate()) || hasPassed(appointment.getStart())
+                || !occupancy.tryReserve(appointment.getDoctor(), appointment.getDate(), slot)) {
+            return false;
+        }
+        if (!appendToLog(appointment.format())) {
+            occupancy.release(appointment.getDoctor(), appointment.getDate(), slot);
+            return false;
+        }
+        appointmentIndex.add(appointment);
+        if (reminders != null) {
+            reminders.schedule(appointment);
+        }
+        synchronized (nextFreeSlots) {
+            if (appointment.getStart().equals(nextFreeByDoctor.get(appointment.getDoctor()))) {
+                updateNextFreeSlot(appointment.getDoctor(),
+                        firstFreeSlot(appointment.getDoctor(), appointment.getStart().plusMinutes(1)));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cancels a booked appointment. The slot is released and the cancellation is logged to the appointments
+     * file, so the slot stays free when the calendar is loaded again.
+     *
+     * @param appointment the appointment to cancel
+     * @return true if the appointment was cancelled, false if it was not booked or could not be saved
+     */
+    public boolean cancel(Appointment appointment) {
+        int slot = slotTimes.indexOf(appointment.getTime());
+        if (slot < 0 || !appointmentIndex.remove(appointment)) {
+            return false; // Removing it from the index first means only one cancellation can succeed
+        }
+        if (!appendToLog(CANCELLED_PREFIX + appointment.format())) {
+            appointmentIndex.add(appointment);
+            return false;
+        }
+        occupancy.release(appointment.getDoctor(), appointment.getDate(), slot);
+        if (reminders != null) {
+            reminders.cancel(appointment);
+        }
+        synchronized (nextFreeSlots) {
+            LocalDateTime next = nextFreeByDoctor.get(appointment.getDoctor());
+            if (next == null || appointment.getStart().isBefore(next)) {
+                updateNextFreeSlot(appointment.getDoctor(), appointment.getStart());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Books the earliest free slot of any doctor that starts at or after the given time.
+     * If another terminal takes the slot first, the next earliest slot is tried.
+     *
+     * @param patientName the patient the appointment is for
+     * @param after the earliest acceptable start
+     * @return the booked appointment, or null if it could not be saved
+     */
+    public Appointment bookEarliestAvailable(String patientName, LocalDateTime after) {
+        while (true) {
+            NextFreeSlot earliest = findEarliestFreeSlot(after);
+            if (earliest == null) {
+                return null;
+            }
+            Appointment appointment = new Appointment(patientName, earliest.doctor,
+                    earliest.start.toLocalDate(), earliest.start.toLocalTime());
+            if (book(appointment)) {
+                return appointment;
+            }
+            if (isAvailable(earliest.doctor, earliest.start.toLocalDate(), earliest.start.toLocalTime())) {
+                return null; // The slot is still free, so the booking failed to save
+            }
+        }
+    }
+
+    /**
+     * Finds the earliest free slot of any doctor that starts at or after the given time.
+     * Entries at the head of the queue that were superseded, booked meanwhile or lie before the given time
+     * are recomputed for their doctor and put back, so each call only touches the doctors whose entries changed.
+     *
+     * @param after the earliest acceptable start
+     * @return the doctor and start of the earliest free slot, or null if there are no doctors
+     */
+    private NextFreeSlot findEarliestFreeSlot(LocalDateTime after) {
+        synchronized (nextFreeSlots) {
+            while (!nextFreeSlots.isEmpty()) {
+                NextFreeSlot head = nextFreeSlots.peek();
+                if (!head.start.equals(nextFreeByDoctor.get(head.doctor))) {
+                    nextFreeSlots.poll(); // Superseded by a newer entry for the same doctor
+                } else if (head.start.isBefore(after)) {
+                    updateNextFreeSlot(head.doctor, firstFreeSlot(head.doctor, after));
+                } else if (!isAvailable(head.doctor, head.start.toLocalDate(), head.start.toLocalTime())) {
+                    updateNextFreeSlot(head.doctor, firstFreeSlot(head.doctor, head.start.plusMinutes(1)));
+                } else {
+                    return head;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Records a doctor's next free slot in the queue. The doctor's previous entry is left in the queue
+     * and dropped when it reaches the head. Must be called while holding the queue's lock.
+     *
+     * @param doctor the doctor
+     * @param start the start of the doctor's next free slot
+     */
+    private void updateNextFreeSlot(String doctor, LocalDateTime start) {
+        nextFreeByDoctor.put(doctor, start);
+        nextFreeSlots.add(new NextFreeSlot(doctor, start));
+    }
+
+    /**
+     * Finds the first free slot of a doctor that starts at or after the given time.
+     * Only the first day is checked slot by slot; from there the doctor's sorted day map is searched for the
+     * next day that is not fully booked, so runs of saturated days are skipped rather than walked one by one.
+     *
+     * @param doctor the doctor
+     * @param after the earliest acceptable start
+     * @return the start of the first free slot, or null if the doctor is unknown
+     */
+    public LocalDateTime firstFreeSlot(String doctor, LocalDateTime after) {
+        if (!DOCTORS.contains(doctor)) {
+            return null;
+        }
+        LocalDate day = after.toLocalDate();
+        int fromSlot = firstSlotAtOrAfter(after.toLocalTime());
+        while (true) {
+            if (isWorkingDay(day)) {
+                int slot = occupancy.firstFreeSlot(doctor, day, fromSlot);
+                if (slot >= 0) {
+                    return LocalDateTime.of(day, slotTimes.get(slot));
+                }
+            }
+            // Ends at the first working day that is not fully booked; weekends have no bookings
+            day = occupancy.firstDayWithFreeSlot(doctor, day.plusDays(1));
+            fromSlot = 0;
+        }
+    }
+
+    /**
+     * Lists a doctor's free slots between two times.
+     *
+     * @param doctor the doctor
+     * @param from the earliest acceptable start
+     * @param to the end of the period (exclusive)
+     * @return the starts of the free slots in time order
+     */
+    public List<LocalDateTime> freeSlots(String doctor, LocalDateTime from, LocalDateTime to) {
+        if (!DOCTORS.contains(doctor)) {
+            return Collections.emptyList();
+        }
+        List<LocalDateTime> free = new ArrayList<>();
+        LocalDateTime next = firstFreeSlot(doctor, from);
+        while (next.isBefore(to)) {
+            free.add(next);
+            next = firstFreeSlot(doctor, next.plusMinutes(1));
+        }
+        return free;
+    }
+
+    /**
+     * Lists a doctor's next free slots.
+     *
+     * @param doctor the doctor
+     * @param after the earliest acceptable start
+     * @param count the number of slots to return
+     * @return the starts of the free slots in time order, empty if the doctor is unknown
+     */
+    public List<LocalDateTime> nextFreeSlots(String doctor, LocalDateTime after, int count) {
+        List<LocalDateTime> free = new ArrayList<>(count);
+        LocalDateTime next = firstFreeSlot(doctor, after);
+        while (next != null && free.size() < count) {
+            free.add(next);
+            next = firstFreeSlot(doctor, next.plusMinutes(1));
+        }
+        return free;
+    }
+
+    /**
+     * Lists a doctor's free slots in the seven days starting today.
+     *
+     * @param doctor the doctor
+     * @return the starts of the free slots in time order
+     */
+    public List<LocalDateTime> freeSlotsThisWeek(String doctor) {
+        LocalDateTime now = LocalDateTime.now();
+        return freeSlots(doctor, now, now.toLocalDate().plusDays(7).atStartOfDay());
+    }
+
+    /**
+     * Lists a page of all booked appointments that start in a time range, in time order.
+     *
+     * @param from the start of the range (inclusive)
+     * @param to the end of the range (exclusive)
+     * @param startAfter the last appointment of the previous page, or null to start from the beginning
+     * @param limit the maximum number of appointments to return
+     * @return the appointments on the page
+     */
+    public List<Appointment> findAppointments(LocalDateTime from, LocalDateTime to, Appointment startAfter, int limit) {
+        return appointmentIndex.findBetween(from, to, startAfter, limit);
+    }
+
+    /**
+     * Lists a page of a doctor's booked appointments that start in a time range, in time order.
+     *
+     * @param doctor the doctor
+     * @param from the start of the range (inclusive)
+     * @param to the end of the range (exclusive)
+     * @param startAfter the last appointment of the previous page, or null to start from the beginning
+     * @param limit the maximum number of appointments to return
+     * @return the appointments on the page
+     */
+    public List<Appointment> findAppointmentsByDoctor(String doctor, LocalDateTime from, LocalDateTime to,
+                                                      Appointment startAfter, int limit) {
+        return appointmentIndex.findByDoctor(doctor, from, to, startAfter, limit);
+    }
+
+    /**
+     * Lists a page of a patient's booked appointments that start in a time range, in time order.
+     *
+     * @param patientName the patient's name, matched case-insensitively
+     * @param from the start of the range (inclusive)
+     * @param to the end of the range (exclusive)
+     * @param startAfter the last appointment of the previous page, or null to start from the beginning
+     * @param limit the maximum number of appointments to return
+     * @return the appointments on the page
+     */
+    public List<Appointment> findAppointmentsByPatient(String patientName, LocalDateTime from, LocalDateTime to,
+                                                       Appointment startAfter, int limit) {
+        return appointmentIndex.findByPatient(patientName, from, to, startAfter, limit);
+    }
+
+    /**
+     * Finds the index of the first time slot that starts at or after the given time of day.
+     *
+     * @param time the time of day
+     * @return the slot index, or the number of slots if none is left that day
+     */
+    private int firstSlotAtOrAfter(LocalTime time) {
+        int slot = 0;
+        while (slot < slotTimes.size() && slotTimes.get(slot).isBefore(time)) {
+            slot++;
+        }
+        return slot;
+    }
+
+    /**
+     * Checks whether appointments can be made on a day.
+     *
+     * @param date the day
+     * @return true from Monday to Friday
+     */
+    private static boolean isWorkingDay(LocalDate date) {
+        DayOfWeek day = date.getDayOfWeek();
+        return day != DayOfWeek.SATURDAY && day != DayOfWeek.SUNDAY;
+    }
+
+    /**
+     * Appends a line to the appointments file and forces it to disk.
+     * Only the append itself is serialized; the slot has already been reserved.
+     *
+     * @param line the line to append
+     * @return true if the line was saved, false otherwise
+     */
+    private boolean appendToLog(String line) {
+        synchronized (appointmentLogLock) {
+            try {
+                if (appointmentLog == null) {
+                    appointmentLog = new FileOutputStream(appointmentsFile, true);
+                }
+                appointmentLog.write((line + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+                appointmentLog.getChannel().force(false);
+                return true;
+            } catch (IOException e) {
+                System.out.println("Error saving appointment: " + e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Replays the appointments file into the occupancy index and the appointment index.
+     * Cancellation lines free their slot again.
+     * Lines written before appointments had dates cannot be placed on a day and are skipped.
+     */
+    private void load() {
+        File file = new File(appointmentsFile);
+        if (!file.exists()) {
+            return; // No appointments booked yet
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                boolean cancelled = line.startsWith(CANCELLED_PREFIX);
+                Appointment appointment = Appointment.parse(cancelled ? line.substring(CANCELLED_PREFIX.length()) : line);
+                if (appointment != null) {
+                    int slot = slotTimes.indexOf(appointment.getTime());
+                    if (slot < 0) {
+                        continue;
+                    }
+                    if (cancelled) {
+                        if (appointmentIndex.remove(appointment)) {
+                            occupancy.release(appointment.getDoctor(), appointment.getDate(), slot);
+                        }
+                    } else if (occupancy.tryReserve(appointment.getDoctor(), appointment.getDate(), slot)) {
+                        appointmentIndex.add(appointment);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error loading appointments: " + e.getMessage());
+        }
+    }
+
+    /**
+     * A doctor's next free slot, as held in the earliest-available queue.
+     * Entries are ordered by start time, then by doctor.
+     */
+    private static final class NextFreeSlot implements Comparable<NextFreeSlot> {
+        private final String doctor;
+        private final LocalDateTime start;
+
+        private NextFreeSlot(String doctor, LocalDateTime start) {
+            this.doctor = doctor;
+            this.start = start;
+        }
+
+        @Override
+        public int compareTo(NextFreeSlot other) {
+            int byStart = start.compareTo(other.start);
+            return byStart != 0 ? byStart : doctor.compareTo(other.doctor);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package VirtualDoctor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * This class indexes booked appointments for filtered queries.
+ * All appointments are kept in one set ordered by start time, and each doctor and each patient has a set of
+ * their own, so a query seeks straight to the start of its time range and only walks the appointments it returns.
+ * The sets are concurrent, so queries can run while appointments are booked and cancelled.
+ */
+public class AppointmentIndex {
+    // Start time, then doctor, then patient: unique for a booked slot and stable for paging
+    private static final Comparator<Appointment> BY_START = Comparator.comparing(Appointment::getStart)
+            .thenComparing(Appointment::getDoctor)
+            .thenComparing(Appointment::getPatientName);
+
+    private final NavigableSet<Appointment> byStart = new ConcurrentSkipListSet<>(BY_START);
+    private final ConcurrentHashMap<String, NavigableSet<Appointment>> byDoctor = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, NavigableSet<Appointment>> byPatient = new ConcurrentHashMap<>(); // Case-folded names
+
+    /**
+     * Adds a booked appointment to the index.
+     *
+     * @param appointment the appointment
+     */
+    public void add(Appointment appointment) {
+        byStart.add(appointment);
+        byDoctor.computeIfAbsent(appointment.getDoctor(), d -> new ConcurrentSkipListSet<>(BY_START)).add(appointment);
+        byPatient.computeIfAbsent(PatientIndex.fold(appointment.getPatientName()),
+                p -> new ConcurrentSkipListSet<>(BY_START)).add(appointment);
+    }
+
+    /**
+     * Removes a cancelled appointment from the index.
+     *
+     * @param appointment the appointment
+     * @return true if the appointment was in the index, false otherwise
+     */
+    public boolean remove(Appointment appointment) {
+        if (!byStart.remove(appointment)) {
+            return false;
+        }
+        NavigableSet<Appointment> doctorAppointments = byDoctor.get(appointment.getDoctor());
+        if (doctorAppointments != null) {
+            doctorAppointments.remove(appointment);
+        }
+        NavigableSet<Appointment> patientAppointments = byPatient.get(PatientIndex.fold(appointment.getPatientName()));
+        if (patientAppointments != null) {
+            patientAppointments.remove(appointment);
+        }
+        return true;
+    }
+
+    /**
+     * Lists a page of all appointments that start in a time range, in time order.
+     *
+     * @param from the start of the range (inclusive)
+     * @param to the end of the range (exclusive)
+     * @param startAfter the last appointment of the previous page, or null to start from the beginning
+     * @param limit the maximum number of appointments to return
+     * @return the appointments on the page
+     */
+    public List<Appointment> findBetween(LocalDateTime from, LocalDateTime to, Appointment startAfter, int limit) {
+        return page(byStart, from, to, startAfter, limit);
+    }
+
+    /**
+     * Lists a page of a doctor's appointments that start in a time range, in time order.
+     *
+     * @param doctor the doctor
+     * @param from the start of the range (inclusive)
+     * @param to the end of the range (exclusive)
+     * @param startAfter the last appointment of the previous page, or null to start from the beginning
+     * @param limit the maximum number of appointments to return
+     * @return the appointments on the page
+     */
+    public List<Appointment> findByDoctor(String doctor, LocalDateTime from, LocalDateTime to,
+                                          Appointment startAfter, int limit) {
+        return page(byDoctor.get(doctor), from, to, startAfter, limit);
+    }
+
+    /**
+     * Lists a page of a patient's appointments that start in a time range, in time order.
+     * The patient's name is matched case-insensitively.
+     *
+     * @param patientName the patient's name
+     * @param from the start of the range (inclusive)
+     * @param to the end of the range (exclusive)
+     * @param startAfter the last appointment of the previous page, or null to start from the beginning
+     * @param limit the maximum number of appointments to return
+     * @return the appointments on the page
+     */
+    public List<Appointment> findByPatient(String patientName, LocalDateTime from, LocalDateTime to,
+                                           Appointment startAfter, int limit) {
+        return page(byPatient.get(PatientIndex.fold(patientName)), from, to, startAfter, limit);
+    }
+
+    /**
+     * Walks one page of a set, from the later of the range start and the cursor, up to the range end.
+     *
+     * @param appointments the set to walk, or null if there is none
+     * @param from the start of the range (inclusive)
+     * @param to the end of the range (exclusive)
+     * @param startAfter the cursor (exclusive), or null
+     * @param limit the maximum number of appointments to return
+     * @return the appointments on the page
+     */
+    private static List<Appointment> page(NavigableSet<Appointment> appointments, LocalDateTime from,
+                                          LocalDateTime to, Appointment startAfter, int limit) {
+        if (appointments == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        Appointment lower = probe(from);
+        boolean inclusive = true;
+        if (startAfter != null && BY_START.compare(startAfter, lower) >= 0) {
+            lower = startAfter;
+            inclusive = false;
+        }
+        List<Appointment> page = new ArrayList<>(Math.min(limit, 64));
+        for (Appointment appointment : appointments.tailSet(lower, inclusive)) {
+            if (page.size() >= limit || !appointment.getStart().isBefore(to)) {
+                break;
+            }
+            page.add(appointment);
+        }
+        return page;
+    }
+
+    /**
+     * Creates a search key that sorts before every appointment starting at the given time.
+     *
+     * @param start the time
+     * @return the search key
+     */
+    private static Appointment probe(LocalDateTime start) {
+        return new Appointment("", "", start.toLocalDate(), start.toLocalTime());
+    }
+}
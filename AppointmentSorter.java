@@ -0,0 +1,291 @@
+package VirtualDoctor;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * This class produces sorted views of the appointments file with an external merge sort.
+ * The file is read in chunks of a bounded number of appointments; each chunk is sorted in memory and,
+ * if the file does not fit in one chunk, spilled to a temporary file. The chunks are then merged with a
+ * priority queue and the appointments are handed to the caller one at a time, so memory use depends on
+ * the chunk size and not on the length of the history.
+ * <p>
+ * Cancelled appointments are left out. Lines written before appointments had dates are skipped.
+ */
+public class AppointmentSorter {
+    private static final String APPOINTMENTS_FILE = "appointments.txt";
+    private static final String CANCELLED_PREFIX = "Cancelled - ";
+    private static final int DEFAULT_CHUNK_SIZE = 100_000; // Appointments sorted in memory at a time
+
+    /**
+     * The orders appointments can be sorted in. Ties are broken by time, doctor, patient and the order the lines
+     * were written in, so a booking and its cancellation always end up next to each other.
+     */
+    public enum Order {
+        DOCTOR(Comparator.comparing(Appointment::getDoctor, String.CASE_INSENSITIVE_ORDER)
+                .thenComparing(Appointment::getStart)),
+        TIME(Comparator.comparing(Appointment::getStart)
+                .thenComparing(Appointment::getDoctor, String.CASE_INSENSITIVE_ORDER)),
+        PATIENT(Comparator.comparing(Appointment::getPatientName, String.CASE_INSENSITIVE_ORDER)
+                .thenComparing(Appointment::getStart)
+                .thenComparing(Appointment::getDoctor, String.CASE_INSENSITIVE_ORDER));
+
+        private final Comparator<Entry> entryOrder;
+
+        Order(Comparator<Appointment> appointmentOrder) {
+            this.entryOrder = Comparator.comparing((Entry entry) -> entry.appointment, appointmentOrder
+                    .thenComparing(Appointment::getDoctor)
+                    .thenComparing(Appointment::getPatientName))
+                    .thenComparingLong(entry -> entry.sequence);
+        }
+    }
+
+    private final String appointmentsFile;
+    private final int chunkSize;
+
+    /**
+     * Constructor to sort the default appointments file.
+     */
+    public AppointmentSorter() {
+        this(APPOINTMENTS_FILE, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructor to sort the given appointments file with the given chunk size.
+     *
+     * @param appointmentsFile the appointments file
+     * @param chunkSize the number of appointments sorted in memory at a time
+     */
+    public AppointmentSorter(String appointmentsFile, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("The chunk size must be at least 1.");
+        }
+        this.appointmentsFile = appointmentsFile;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Streams the booked appointments to the consumer in the given order.
+     *
+     * @param order the sort order
+     * @param consumer receives each appointment, in order
+     * @throws IOException if the appointments file or a temporary file cannot be read or written
+     */
+    public void sort(Order order, Consumer<Appointment> consumer) throws IOException {
+        File file = new File(appointmentsFile);
+        if (!file.exists()) {
+            return; // No appointments booked yet
+        }
+        List<Path> runs = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            List<Entry> chunk = new ArrayList<>();
+            long sequence = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Entry entry = Entry.parse(sequence++, line);
+                if (entry == null) {
+                    continue;
+                }
+                chunk.add(entry);
+                if (chunk.size() == chunkSize) {
+                    runs.add(spill(chunk, order));
+                    chunk.clear();
+                }
+            }
+            chunk.sort(order.entryOrder);
+            if (runs.isEmpty()) {
+                emit(chunk.iterator(), consumer); // The whole file fit in one chunk
+                return;
+            }
+            if (!chunk.isEmpty()) {
+                runs.add(spill(chunk, order));
+            }
+            merge(runs, order, consumer);
+        } finally {
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+        }
+    }
+
+    /**
+     * Sorts a chunk and writes it to a temporary file.
+     *
+     * @param chunk the chunk to sort
+     * @param order the sort order
+     * @return the temporary file
+     * @throws IOException if the file cannot be written
+     */
+    private static Path spill(List<Entry> chunk, Order order) throws IOException {
+        chunk.sort(order.entryOrder);
+        Path run = Files.createTempFile("appointments", ".run");
+        try (BufferedWriter writer = Files.newBufferedWriter(run, StandardCharsets.UTF_8)) {
+            for (Entry entry : chunk) {
+                writer.write(entry.format());
+                writer.newLine();
+            }
+        }
+        return run;
+    }
+
+    /**
+     * Merges the sorted temporary files, keeping one reader per file in a priority queue
+     * ordered by the file's next appointment.
+     *
+     * @param runs the sorted temporary files
+     * @param order the sort order
+     * @param consumer receives each appointment, in order
+     * @throws IOException if a file cannot be read
+     */
+    private static void merge(List<Path> runs, Order order, Consumer<Appointment> consumer) throws IOException {
+        PriorityQueue<RunReader> heads = new PriorityQueue<>(runs.size(),
+                (a, b) -> order.entryOrder.compare(a.head, b.head));
+        List<RunReader> readers = new ArrayList<>(runs.size());
+        try {
+            for (Path run : runs) {
+                RunReader reader = new RunReader(Files.newBufferedReader(run, StandardCharsets.UTF_8));
+                readers.add(reader);
+                if (reader.advance()) {
+                    heads.add(reader);
+                }
+            }
+            emit(new Iterator<Entry>() {
+                @Override
+                public boolean hasNext() {
+                    return !heads.isEmpty();
+                }
+
+                @Override
+                public Entry next() {
+                    RunReader reader = heads.poll();
+                    Entry entry = reader.head;
+                    if (reader.advance()) {
+                        heads.add(reader);
+                    }
+                    return entry;
+                }
+            }, consumer);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            for (RunReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * Hands sorted entries to the consumer, leaving out cancelled bookings.
+     * A cancellation sorts directly after the booking it cancels, so only one entry is held back.
+     *
+     * @param entries the entries in sorted order
+     * @param consumer receives each booked appointment
+     */
+    private static void emit(Iterator<Entry> entries, Consumer<Appointment> consumer) {
+        Entry pending = null;
+        while (entries.hasNext()) {
+            Entry entry = entries.next();
+            if (entry.cancelled) {
+                if (pending != null && pending.isSameBooking(entry)) {
+                    pending = null;
+                }
+                continue; // A cancellation of a booking that was not found is ignored
+            }
+            if (pending != null) {
+                consumer.accept(pending.appointment);
+            }
+            pending = entry;
+        }
+        if (pending != null) {
+            consumer.accept(pending.appointment);
+        }
+    }
+
+    /**
+     * A booking or cancellation read from the appointments file, with the line number it was read from.
+     */
+    private static final class Entry {
+        private final long sequence;
+        private final boolean cancelled;
+        private final Appointment appointment;
+
+        private Entry(long sequence, boolean cancelled, Appointment appointment) {
+            this.sequence = sequence;
+            this.cancelled = cancelled;
+            this.appointment = appointment;
+        }
+
+        /**
+         * Parses a line of the appointments file.
+         *
+         * @param sequence the line number
+         * @param line the line
+         * @return the entry, or null if the line is not a dated appointment
+         */
+        private static Entry parse(long sequence, String line) {
+            boolean cancelled = line.startsWith(CANCELLED_PREFIX);
+            Appointment appointment = Appointment.parse(cancelled ? line.substring(CANCELLED_PREFIX.length()) : line);
+            return appointment == null ? null : new Entry(sequence, cancelled, appointment);
+        }
+
+        /**
+         * Formats the entry as a line of a temporary file: the line number, then the original line.
+         *
+         * @return the temporary file line
+         */
+        private String format() {
+            return sequence + "," + (cancelled ? CANCELLED_PREFIX : "") + appointment.format();
+        }
+
+        private boolean isSameBooking(Entry other) {
+            return appointment.getStart().equals(other.appointment.getStart())
+                    && appointment.getDoctor().equals(other.appointment.getDoctor())
+                    && appointment.getPatientName().equals(other.appointment.getPatientName());
+        }
+    }
+
+    /**
+     * Reads a sorted temporary file one entry at a time.
+     */
+    private static final class RunReader implements Closeable {
+        private final BufferedReader reader;
+        private Entry head;
+
+        private RunReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * Reads the next entry of the file into head.
+         *
+         * @return true if an entry was read, false at the end of the file
+         */
+        private boolean advance() {
+            try {
+                String line = reader.readLine();
+                if (line == null) {
+                    head = null;
+                    return false;
+                }
+                int comma = line.indexOf(',');
+                head = Entry.parse(Long.parseLong(line.substring(0, comma)), line.substring(comma + 1));
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package VirtualDoctor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class reports the outcome of a bulk patient import: how many rows were imported,
+ * which rows were rejected and why, and how fast the import ran.
+ */
+public class BulkImportResult {
+    private static final int MAX_REPORTED_REJECTIONS = 1000; // Keeps the report bounded for very bad input
+
+    private int importedCount;
+    private int rejectedCount;
+    private int batchCount;
+    private long elapsedNanos;
+    private final List<String> rejections = new ArrayList<>();
+
+    /**
+     * Records rows that were imported as one batch.
+     *
+     * @param rows the number of rows in the batch
+     */
+    void recordBatch(int rows) {
+        importedCount += rows;
+        batchCount++;
+    }
+
+    /**
+     * Records a row that failed validation.
+     *
+     * @param rowNumber the 1-based number of the row in the input
+     * @param reason why the row was rejected
+     */
+    void recordRejection(long rowNumber, String reason) {
+        rejectedCount++;
+        if (rejections.size() < MAX_REPORTED_REJECTIONS) {
+            rejections.add("Row " + rowNumber + ": " + reason);
+        }
+    }
+
+    /**
+     * Records a batch of valid rows that could not be written to disk.
+     *
+     * @param lastRowNumber the 1-based number of the last row in the batch
+     * @param rows the number of rows in the batch
+     * @param reason why the batch could not be written
+     */
+    void recordFailedBatch(long lastRowNumber, int rows, String reason) {
+        rejectedCount += rows;
+        if (rejections.size() < MAX_REPORTED_REJECTIONS) {
+            rejections.add("Rows " + (lastRowNumber - rows + 1) + "-" + lastRowNumber + " (valid rows only): " + reason);
+        }
+    }
+
+    /**
+     * Sets how long the import took.
+     *
+     * @param elapsedNanos the elapsed time in nanoseconds
+     */
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Gets the number of rows that were imported.
+     *
+     * @return the number of imported rows
+     */
+    public int getImportedCount() {
+        return importedCount;
+    }
+
+    /**
+     * Gets the number of rows that were rejected.
+     *
+     * @return the number of rejected rows
+     */
+    public int getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * Gets the number of batches written to disk.
+     *
+     * @return the number of batches
+     */
+    public int getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * Gets the rejected rows with their reasons. At most MAX_REPORTED_REJECTIONS are kept.
+     *
+     * @return the rejected rows
+     */
+    public List<String> getRejections() {
+        return Collections.unmodifiableList(rejections);
+    }
+
+    /**
+     * Gets the import throughput.
+     *
+     * @return the number of imported rows per second
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : importedCount * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    /**
+     * Displays a summary of the import, including the first rejected rows.
+     */
+    public void displaySummary() {
+        System.out.println("Imported " + importedCount + " patients in " + batchCount + " batches ("
+                + Math.round(getRowsPerSecond()) + " rows/s), rejected " + rejectedCount + ".");
+        for (String rejection : rejections) {
+            System.out.println(" - " + rejection);
+        }
+        if (rejectedCount > rejections.size()) {
+            System.out.println(" - ... and " + (rejectedCount - rejections.size()) + " more");
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package VirtualDoctor;
+
+/**
+ * This class delivers appointment reminders by printing them to the console.
+ */
+public class ConsoleReminderSink implements ReminderSink {
+    /**
+     * Prints a reminder.
+     *
+     * @param reminder the reminder that is due
+     */
+    @Override
+    public void deliver(Reminder reminder) {
+        System.out.println("Reminder: " + reminder.getMessage());
+    }
+}
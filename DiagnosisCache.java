@@ -0,0 +1,188 @@
+package VirtualDoctor;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class caches ranked diagnoses for symptom descriptions, since most complaints repeat.
+ * Descriptions are normalized before lookup: trimmed, case-folded and split into words, which are sorted
+ * and deduplicated. The diagnosis model treats a description as a set of words, so "Cough and fever" and
+ * "fever, cough" share one entry and get exactly the ranking they would get uncached.
+ * <p>
+ * The cache holds at most a fixed number of descriptions and evicts the least recently used one when full.
+ * Every entry belongs to the knowledge base snapshot it was ranked with; when the symptom catalog swaps in a
+ * new snapshot, the next lookup clears the cache, and rankings still being computed from the old snapshot
+ * are not stored. Rankings are computed outside the lock, so a slow miss never holds up other lookups.
+ */
+public class DiagnosisCache {
+    static final int DEFAULT_CAPACITY = 1024;
+
+    private final SymptomCatalog catalog;
+    private final int capacity;
+    private final Map<String, List<DiagnosisModel.Diagnosis>> rankings; // Guarded by itself, least recently used first
+    private SymptomKnowledgeBase snapshot; // Guarded by rankings; the snapshot the cached rankings belong to
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * Constructor to create a cache of the default size over a symptom catalog.
+     *
+     * @param catalog the symptom catalog to rank with
+     */
+    public DiagnosisCache(SymptomCatalog catalog) {
+        this(catalog, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor to create a cache over a symptom catalog.
+     *
+     * @param catalog the symptom catalog to rank with
+     * @param capacity the most descriptions to keep
+     */
+    public DiagnosisCache(SymptomCatalog catalog, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1.");
+        }
+        this.catalog = catalog;
+        this.capacity = capacity;
+        this.rankings = new LinkedHashMap<String, List<DiagnosisModel.Diagnosis>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<DiagnosisModel.Diagnosis>> eldest) {
+                if (size() > DiagnosisCache.this.capacity) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Ranks the possible diagnoses for a description, from the cache if it was ranked before.
+     *
+     * @param description the patient's description of their symptoms
+     * @return the diseases sharing a word with the description, most probable first; unmodifiable
+     */
+    public List<DiagnosisModel.Diagnosis> rank(String description) {
+        String key = normalize(description);
+        SymptomKnowledgeBase current = catalog.current();
+        synchronized (rankings) {
+            if (snapshot != current) {
+                if (!rankings.isEmpty()) {
+                    invalidations.increment();
+                }
+                rankings.clear(); // The catalog changed; every cached ranking may be out of date
+                snapshot = current;
+            }
+            List<DiagnosisModel.Diagnosis> cached = rankings.get(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+        // The key is already stemmed and stems do not survive a second pass, so the description itself is ranked;
+        // it has the same words as the key, so it gets the same ranking as every description sharing the key
+        List<DiagnosisModel.Diagnosis> ranked = Collections.unmodifiableList(current.rank(description));
+        synchronized (rankings) {
+            if (snapshot == current) {
+                rankings.put(key, ranked); // Dropped if the catalog changed while ranking
+            }
+        }
+        return ranked;
+    }
+
+    /**
+     * Finds the most probable disease for a description.
+     *
+     * @param description the patient's description of their symptoms
+     * @return the most probable disease, or null if no known symptom word is mentioned
+     */
+    public DiseaseEntry diagnose(String description) {
+        List<DiagnosisModel.Diagnosis> ranked = rank(description);
+        return ranked.isEmpty() ? null : ranked.get(0).getDisease();
+    }
+
+    /**
+     * Normalizes a description into a cache key: its distinct lower-case words, sorted and joined by spaces.
+     *
+     * @param description the description
+     * @return the cache key
+     */
+    static String normalize(String description) {
+        return String.join(" ", new TreeSet<>(DiagnosisModel.tokenize(description.trim())));
+    }
+
+    /**
+     * Gets the number of lookups answered from the cache.
+     *
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of lookups that had to be ranked.
+     *
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the share of lookups answered from the cache.
+     *
+     * @return the hit rate, between 0 and 1; 0 before the first lookup
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * Gets the number of descriptions evicted to stay within the capacity.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Gets the number of times the cache was cleared because the catalog changed.
+     *
+     * @return the number of invalidations
+     */
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    /**
+     * Gets the number of descriptions currently cached.
+     *
+     * @return the number of cached descriptions
+     */
+    public int size() {
+        synchronized (rankings) {
+            return rankings.size();
+        }
+    }
+
+    /**
+     * Gets the most descriptions the cache keeps.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,291 @@
+package VirtualDoctor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * This class ranks possible diagnoses for a complaint with a naive Bayes model over symptom words.
+ * Each disease is treated as a bag of the words of its symptom phrases, and a complaint is scored as
+ * log P(disease) + sum of log P(word | disease) over its known words, with add-alpha smoothing.
+ * All diseases are equally likely a priori.
+ * <p>
+ * Words are reduced to a crude stem before they are compared, by stripping common English endings,
+ * so "coughing", "coughs" and "cough" are the same word on both the symptom and the complaint side.
+ * <p>
+ * Words are interned to integer IDs when the model is built, and the likelihoods are precomputed into
+ * primitive arrays: every disease has a log-likelihood for words it does not mention, and each word has a
+ * posting list of the diseases that do mention it, with how much more likely the word is for them. Scoring a
+ * complaint therefore only walks the posting lists of its own words. Only diseases that share at least one
+ * word with the complaint are ranked, and their probabilities are normalized among themselves.
+ * The model is immutable, so any number of threads can score at once.
+ */
+public class DiagnosisModel {
+    private static final double ALPHA = 0.1; // Smoothing added to every word count
+
+    private final List<DiseaseEntry> diseases;
+    private final Map<String, Integer> wordIds = new HashMap<>();
+    private final double[] baseScore;         // Per disease: log prior
+    private final double[] unseenWord;        // Per disease: log P(word | disease) for a word it does not mention
+    private final int[] postingStart;         // Per word: start of its posting list; one extra entry marks the end
+    private final int[] postingDisease;       // Diseases mentioning each word, grouped by word
+    private final double[] postingWeight;     // log P(word | disease) minus the disease's unseen-word log-likelihood
+    private final ThreadLocal<Scratch> scratch;
+
+    /**
+     * Constructor to build the model with equal priors for all diseases.
+     *
+     * @param diseases the diseases to rank
+     */
+    public DiagnosisModel(List<DiseaseEntry> diseases) {
+        this.diseases = new ArrayList<>(diseases);
+        int diseaseCount = this.diseases.size();
+
+        // Count the words of each disease and intern them
+        List<Map<Integer, Integer>> wordCounts = new ArrayList<>(diseaseCount);
+        int[] totalWords = new int[diseaseCount];
+        for (int d = 0; d < diseaseCount; d++) {
+            Map<Integer, Integer> counts = new HashMap<>();
+            for (String phrase : this.diseases.get(d).getSymptoms()) {
+                for (String word : tokenize(phrase)) {
+                    Integer id = wordIds.computeIfAbsent(word, w -> wordIds.size());
+                    counts.merge(id, 1, Integer::sum);
+                    totalWords[d]++;
+                }
+            }
+            wordCounts.add(counts);
+        }
+        int vocabulary = wordIds.size();
+
+        // Priors and the likelihood of a word a disease does not mention
+        baseScore = new double[diseaseCount];
+        unseenWord = new double[diseaseCount];
+        for (int d = 0; d < diseaseCount; d++) {
+            baseScore[d] = Math.log(1.0 / diseaseCount);
+            unseenWord[d] = Math.log(ALPHA / (totalWords[d] + ALPHA * vocabulary));
+        }
+
+        // Posting lists, laid out word by word
+        int[] postingsPerWord = new int[vocabulary];
+        for (Map<Integer, Integer> counts : wordCounts) {
+            for (int word : counts.keySet()) {
+                postingsPerWord[word]++;
+            }
+        }
+        postingStart = new int[vocabulary + 1];
+        for (int w = 0; w < vocabulary; w++) {
+            postingStart[w + 1] = postingStart[w] + postingsPerWord[w];
+        }
+        postingDisease = new int[postingStart[vocabulary]];
+        postingWeight = new double[postingStart[vocabulary]];
+        int[] next = Arrays.copyOf(postingStart, vocabulary);
+        for (int d = 0; d < diseaseCount; d++) {
+            for (Map.Entry<Integer, Integer> entry : wordCounts.get(d).entrySet()) {
+                int slot = next[entry.getKey()]++;
+                postingDisease[slot] = d;
+                postingWeight[slot] = Math.log((entry.getValue() + ALPHA) / (totalWords[d] + ALPHA * vocabulary))
+                        - unseenWord[d];
+            }
+        }
+
+        scratch = ThreadLocal.withInitial(() -> new Scratch(diseaseCount));
+    }
+
+    /**
+     * Ranks the possible diagnoses for a complaint.
+     *
+     * @param complaint the patient's description of their symptoms
+     * @return the diseases sharing at least one word with the complaint, most probable first
+     */
+    public List<Diagnosis> rank(String complaint) {
+        Scratch s = scratch.get();
+        s.reset();
+        int knownWords = 0;
+        for (String word : tokenize(complaint)) {
+            Integer id = wordIds.get(word);
+            if (id == null) {
+                continue; // Words no disease mentions do not change the ranking
+            }
+            knownWords++;
+            for (int slot = postingStart[id]; slot < postingStart[id + 1]; slot++) {
+                int d = postingDisease[slot];
+                if (s.stamp[d] != s.currentStamp) {
+                    s.stamp[d] = s.currentStamp;
+                    s.score[d] = 0;
+                    s.touched[s.touchedCount++] = d;
+                }
+                s.score[d] += postingWeight[slot];
+            }
+        }
+        if (s.touchedCount == 0) {
+            return new ArrayList<>();
+        }
+
+        // Add each candidate's prior and unseen-word terms, then normalize among the candidates
+        double best = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < s.touchedCount; i++) {
+            int d = s.touched[i];
+            s.score[d] += baseScore[d] + knownWords * unseenWord[d];
+            best = Math.max(best, s.score[d]);
+        }
+        double sum = 0;
+        for (int i = 0; i < s.touchedCount; i++) {
+            sum += Math.exp(s.score[s.touched[i]] - best);
+        }
+        List<Diagnosis> ranked = new ArrayList<>(s.touchedCount);
+        for (int i = 0; i < s.touchedCount; i++) {
+            int d = s.touched[i];
+            ranked.add(new Diagnosis(diseases.get(d), Math.exp(s.score[d] - best) / sum));
+        }
+        ranked.sort((a, b) -> Double.compare(b.probability, a.probability));
+        return ranked;
+    }
+
+    /**
+     * Ranks the possible diagnoses for many complaints in parallel, e.g. to re-score a day's encounters.
+     *
+     * @param complaints the complaints
+     * @return the rankings, in the same order as the complaints
+     */
+    public List<List<Diagnosis>> rankAll(List<String> complaints) {
+        return complaints.parallelStream().map(this::rank).collect(Collectors.toList()); // Keeps the input order
+    }
+
+    /**
+     * Splits text into stemmed lower-case words of letters and digits. Repeated words count once.
+     *
+     * @param text the text
+     * @return the distinct stems in order
+     */
+    static Set<String> tokenize(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(stem(text.substring(start, i).toLowerCase(Locale.ROOT)));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Reduces a lower-case word to a crude stem by stripping common endings, e.g. "coughing" and "coughs" to
+     * "cough", "sneezes" and "sneeze" to "sneez", and "tiredness" to "tir". The stem is only used for
+     * comparing words, so it need not be a real word; at least three letters are always kept.
+     *
+     * @param word the lower-case word
+     * @return the stem
+     */
+    static String stem(String word) {
+        String stem = stripSuffix(stripSuffix(word, "ness"), "ly");
+        for (String suffix : new String[]{"ing", "ed", "es", "s"}) {
+            String stripped = stripSuffix(stem, suffix);
+            if (stripped.length() != stem.length()) {
+                stem = stripped;
+                break;
+            }
+        }
+        if (stem.endsWith("ss")) {
+            return stem; // "loss" keeps its double s
+        }
+        int length = stem.length();
+        if (length > 3 && stem.charAt(length - 1) == stem.charAt(length - 2)
+                && "aeiouy".indexOf(stem.charAt(length - 1)) < 0) {
+            return stem.substring(0, length - 1); // "running" -> "runn" -> "run"
+        }
+        if (length > 3 && stem.charAt(length - 1) == 'e') {
+            return stem.substring(0, length - 1);
+        }
+        if (length > 3 && stem.charAt(length - 1) == 'y') {
+            return stem.substring(0, length - 1) + 'i'; // "dizzy" matches "dizzi(ness)"
+        }
+        return stem;
+    }
+
+    /**
+     * Removes a suffix from a word if at least three letters remain.
+     *
+     * @param word the word
+     * @param suffix the suffix
+     * @return the shortened word, or the same word if it does not end with the suffix
+     */
+    private static String stripSuffix(String word, String suffix) {
+        if (word.length() - suffix.length() >= 3 && word.endsWith(suffix)
+                && !(suffix.equals("s") && word.endsWith("ss"))) {
+            return word.substring(0, word.length() - suffix.length());
+        }
+        return word;
+    }
+
+    /**
+     * A possible diagnosis with its probability among the other candidates.
+     */
+    public static final class Diagnosis {
+        private final DiseaseEntry disease;
+        private final double probability;
+
+        private Diagnosis(DiseaseEntry disease, double probability) {
+            this.disease = disease;
+            this.probability = probability;
+        }
+
+        /**
+         * Gets the disease.
+         *
+         * @return the disease
+         */
+        public DiseaseEntry getDisease() {
+            return disease;
+        }
+
+        /**
+         * Gets the probability of the disease among the ranked candidates.
+         *
+         * @return the probability, between 0 and 1
+         */
+        public double getProbability() {
+            return probability;
+        }
+
+        @Override
+        public String toString() {
+            return disease.getName() + String.format(" (%.1f%%)", probability * 100);
+        }
+    }
+
+    /**
+     * Per-thread score arrays. Stamps mark which diseases belong to the current complaint,
+     * so nothing has to be cleared between complaints.
+     */
+    private static final class Scratch {
+        private final double[] score;
+        private final int[] stamp;
+        private final int[] touched;
+        private int touchedCount;
+        private int currentStamp;
+
+        private Scratch(int diseaseCount) {
+            score = new double[diseaseCount];
+            stamp = new int[diseaseCount];
+            touched = new int[diseaseCount];
+        }
+
+        private void reset() {
+            touchedCount = 0;
+            if (++currentStamp == 0) {
+                Arrays.fill(stamp, 0); // The stamp wrapped around; clear old marks
+                currentStamp = 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package VirtualDoctor;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * This class reports the most common diagnoses and the most commonly reported symptom phrases.
+ * Both are tracked with HeavyHitters, so memory stays the same however many different diseases
+ * and free-text symptoms are seen.
+ */
+public class DiagnosisTrends {
+    private static final int TOP_K = 10;
+    private static final int SKETCH_WIDTH = 2048;
+    private static final int SKETCH_DEPTH = 4;
+    // A description is split into phrases at commas, semicolons, full stops and the word "and"
+    private static final Pattern PHRASE_SEPARATOR = Pattern.compile("\\s*(?:[,;.]|\\band\\b)\\s*");
+
+    private final HeavyHitters diagnoses = new HeavyHitters(TOP_K, SKETCH_WIDTH, SKETCH_DEPTH);
+    private final HeavyHitters symptoms = new HeavyHitters(TOP_K, SKETCH_WIDTH, SKETCH_DEPTH);
+
+    /**
+     * Records the symptom phrases of a patient's description.
+     *
+     * @param description the patient's description of their symptoms
+     */
+    public void recordSymptoms(String description) {
+        for (String phrase : PHRASE_SEPARATOR.split(description.toLowerCase(Locale.ROOT))) {
+            String normalized = phrase.trim().replaceAll("\\s+", " ");
+            if (!normalized.isEmpty()) {
+                symptoms.add(normalized);
+            }
+        }
+    }
+
+    /**
+     * Records a diagnosis.
+     *
+     * @param disease the diagnosed disease
+     */
+    public void recordDiagnosis(String disease) {
+        diagnoses.add(disease);
+    }
+
+    /**
+     * Displays the top diagnoses and symptom phrases with their estimated counts.
+     */
+    public void displayTopReport() {
+        System.out.println("Top Diagnoses (of " + diagnoses.getTotal() + "):");
+        display(diagnoses);
+        System.out.println("Top Reported Symptoms (of " + symptoms.getTotal() + " phrases):");
+        display(symptoms);
+    }
+
+    /**
+     * Displays the top keys of a tracker, numbered.
+     *
+     * @param hitters the tracker
+     */
+    private static void display(HeavyHitters hitters) {
+        int rank = 1;
+        for (Map.Entry<String, Long> entry : hitters.top()) {
+            System.out.println(rank++ + ". " + entry.getKey() + " : ~" + entry.getValue());
+        }
+        if (rank == 1) {
+            System.out.println("No data yet.");
+        }
+    }
+}
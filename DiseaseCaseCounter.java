@@ -0,0 +1,307 @@
+package VirtualDoctor;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * This class counts diagnosed cases per disease in memory.
+ * Every case is appended to an increment log as "sequence,disease", and the counts are periodically
+ * checkpointed to the disease cases file ("Disease : count" per line), which is written to a temporary
+ * file and moved into place atomically. At each checkpoint the log is rotated; once the checkpoint is in
+ * place the rotated log is deleted.
+ * <p>
+ * Sequence numbers run over all cases, so the sum of the counts in the checkpoint is the sequence number
+ * of the last case it includes. On startup the checkpoint is loaded and only log entries after it are
+ * replayed, so a crash at any point neither loses nor double-counts a case that reached the log.
+ */
+public class DiseaseCaseCounter {
+    private static final String DISEASE_CASES_FILE = "disease_cases.txt";
+    private static final long CHECKPOINT_INTERVAL_SECONDS = 60;
+
+    private final Path casesFile;
+    private final Path logFile;
+    private final Path rotatedLogFile;
+    private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ReadWriteLock checkpointLock = new ReentrantReadWriteLock(); // Shared by cases, exclusive for a checkpoint
+    private final Object logLock = new Object();
+    private FileOutputStream log;
+    private long checkpointedSequence; // Guarded by this, like the next field
+    private int checkpointedDiseases;
+
+    /**
+     * Constructor to load the counts from the default disease cases file and its log.
+     */
+    public DiseaseCaseCounter() {
+        this(DISEASE_CASES_FILE);
+    }
+
+    /**
+     * Constructor to load the counts from the given disease cases file and its log.
+     *
+     * @param casesFile the disease cases file
+     */
+    public DiseaseCaseCounter(String casesFile) {
+        this.casesFile = Paths.get(casesFile);
+        this.logFile = Paths.get(casesFile + ".log");
+        this.rotatedLogFile = Paths.get(casesFile + ".log.old");
+        load();
+    }
+
+    /**
+     * Starts a daemon thread that checkpoints the counts at a fixed interval.
+     */
+    public void startCheckpointing() {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "disease-case-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::checkpoint, CHECKPOINT_INTERVAL_SECONDS, CHECKPOINT_INTERVAL_SECONDS,
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * Records one diagnosed case of a disease.
+     *
+     * @param disease the disease
+     */
+    public void recordCase(String disease) {
+        checkpointLock.readLock().lock();
+        try {
+            long caseNumber = sequence.incrementAndGet();
+            counts.computeIfAbsent(disease, d -> new LongAdder()).increment();
+            appendToLog(caseNumber + "," + disease);
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a disease with no cases yet, so it shows up in reports. Known diseases are left as they are.
+     *
+     * @param disease the disease
+     */
+    public void addDisease(String disease) {
+        checkpointLock.readLock().lock();
+        try {
+            if (counts.putIfAbsent(disease, new LongAdder()) == null) {
+                appendToLog("0," + disease); // Sequence 0 registers the disease without counting a case
+            }
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of cases of a disease.
+     *
+     * @param disease the disease
+     * @return the number of cases, 0 if the disease is unknown
+     */
+    public long getCount(String disease) {
+        LongAdder count = counts.get(disease);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * Gets the number of cases of every disease.
+     *
+     * @return the counts, ordered by disease name
+     */
+    public Map<String, Long> getCounts() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        counts.forEach((disease, count) -> snapshot.put(disease, count.sum()));
+        return snapshot;
+    }
+
+    /**
+     * Writes the counts to the disease cases file. Cases are held back only while the counts are copied
+     * and the log is rotated; the file itself is written afterwards.
+     *
+     * @return true if the checkpoint was written or nothing changed since the last one, false otherwise
+     */
+    public synchronized boolean checkpoint() {
+        Map<String, Long> snapshot;
+        checkpointLock.writeLock().lock();
+        try {
+            if (sequence.get() == checkpointedSequence && counts.size() == checkpointedDiseases) {
+                return true; // Nothing new since the last checkpoint
+            }
+            snapshot = getCounts();
+            checkpointedSequence = sequence.get();
+            checkpointedDiseases = snapshot.size();
+            // If an earlier checkpoint failed, its rotated log is still needed; keep appending to the current one
+            if (!Files.exists(rotatedLogFile)) {
+                synchronized (logLock) {
+                    closeLog();
+                    if (Files.exists(logFile)) {
+                        Files.move(logFile, rotatedLogFile);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error rotating disease case log: " + e.getMessage());
+            checkpointedSequence = -1;
+            return false;
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+
+        Path tempFile = Paths.get(casesFile + ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, Long> entry : snapshot.entrySet()) {
+                    writer.write(entry.getKey() + " : " + entry.getValue());
+                    writer.newLine();
+                }
+            }
+            Files.move(tempFile, casesFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(rotatedLogFile); // Every case in it is now part of the checkpoint
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error saving disease cases file: " + e.getMessage());
+            checkpointedSequence = -1; // Make sure the next checkpoint tries again
+            return false;
+        }
+    }
+
+    /**
+     * Loads the checkpoint and replays the cases logged after it.
+     */
+    private void load() {
+        long checkpointed = 0;
+        if (Files.exists(casesFile)) {
+            try (BufferedReader reader = Files.newBufferedReader(casesFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int separator = line.lastIndexOf(':');
+                    if (separator < 0) {
+                        continue;
+                    }
+                    try {
+                        long count = Long.parseLong(line.substring(separator + 1).trim());
+                        LongAdder adder = counts.computeIfAbsent(line.substring(0, separator).trim(), d -> new LongAdder());
+                        adder.add(count);
+                        checkpointed += count;
+                    } catch (NumberFormatException e) {
+                        System.out.println("Skipping invalid disease case entry: " + line);
+                    }
+                }
+            } catch (IOException e) {
+                System.out.println("Error reading disease cases file: " + e.getMessage());
+            }
+        }
+        sequence.set(checkpointed);
+        checkpointedSequence = checkpointed;
+        checkpointedDiseases = counts.size();
+        replay(rotatedLogFile, checkpointed);
+        replay(logFile, checkpointed);
+        checkpoint(); // Fold the replayed cases into the file, if there were any
+    }
+
+    /**
+     * Replays the cases of a log that are not yet part of the checkpoint.
+     *
+     * @param file the log file
+     * @param checkpointed the sequence number of the last case in the checkpoint
+     */
+    private void replay(Path file, long checkpointed) {
+        if (!Files.exists(file)) {
+            return;
+        }
+        truncateTornEntry(file); // A last line without its line break was cut short, e.g. "123,Fl"
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(",", 2);
+                if (parts.length != 2) {
+                    System.out.println("Skipping invalid disease case log entry: " + line);
+                    continue;
+                }
+                try {
+                    long caseNumber = Long.parseLong(parts[0]);
+                    LongAdder count = counts.computeIfAbsent(parts[1], d -> new LongAdder());
+                    if (caseNumber > checkpointed) {
+                        count.increment();
+                        sequence.accumulateAndGet(caseNumber, Math::max);
+                    }
+                } catch (NumberFormatException e) {
+                    System.out.println("Skipping invalid disease case log entry: " + line);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error replaying disease case log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Cuts a log back to the end of its last complete line, so that a case whose line was only partly
+     * written is neither counted under a truncated disease name nor followed by the next appended case.
+     *
+     * @param file the log file
+     */
+    private static void truncateTornEntry(Path file) {
+        try (RandomAccessFile log = new RandomAccessFile(file.toFile(), "rw")) {
+            long end = log.length();
+            while (end > 0) {
+                log.seek(end - 1);
+                if (log.read() == '\n') {
+                    break;
+                }
+                end--;
+            }
+            if (end < log.length()) {
+                System.out.println("Discarding incomplete disease case log entry at offset " + end);
+                log.setLength(end);
+            }
+        } catch (IOException e) {
+            System.out.println("Error repairing disease case log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Appends a line to the increment log. Each line is a single write, so a crash loses at most
+     * the line being written.
+     *
+     * @param line the line to append
+     */
+    private void appendToLog(String line) {
+        synchronized (logLock) {
+            try {
+                if (log == null) {
+                    log = new FileOutputStream(logFile.toFile(), true);
+                }
+                log.write((line + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                System.out.println("Error logging disease case: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Closes the increment log so that it can be rotated. Must be called while holding the log lock.
+     *
+     * @throws IOException if the log cannot be closed
+     */
+    private void closeLog() throws IOException {
+        if (log != null) {
+            log.close();
+            log = null;
+        }
+    }
+}
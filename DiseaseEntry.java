@@ -0,0 +1,118 @@
+package VirtualDoctor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This class represents one disease of the symptom knowledge base: its name, the symptom phrases that point
+ * to it, and what to prescribe. Entries come either from the DiseaseType enum or from the symptoms file,
+ * and are immutable.
+ */
+public class DiseaseEntry {
+    static final String DEFAULT_DOSAGE_INSTRUCTION = "Take one pill two times daily before meals.";
+
+    private final String name;
+    private final List<String> symptoms;
+    private final String prescription;
+    private final String dosageInstruction;
+
+    /**
+     * Constructor to initialize a disease entry.
+     *
+     * @param name the name of the disease
+     * @param symptoms the symptom phrases of the disease
+     * @param prescription the medication to prescribe
+     * @param dosageInstruction how to take the medication
+     */
+    public DiseaseEntry(String name, List<String> symptoms, String prescription, String dosageInstruction) {
+        this.name = name;
+        this.symptoms = Collections.unmodifiableList(new ArrayList<>(symptoms));
+        this.prescription = prescription;
+        this.dosageInstruction = dosageInstruction;
+    }
+
+    /**
+     * Creates the entry for a disease of the DiseaseType enum.
+     *
+     * @param type the disease type
+     * @return the disease entry
+     */
+    public static DiseaseEntry of(DiseaseType type) {
+        return new DiseaseEntry(type.getDescription(), splitSymptoms(type.getSymptoms()),
+                type.getPrescription(), type.getDosageInstruction());
+    }
+
+    /**
+     * Combines this entry with another entry for the same disease. The symptoms of both are kept,
+     * and the other entry's prescription replaces this one's.
+     *
+     * @param other the other entry
+     * @return the combined entry
+     */
+    public DiseaseEntry mergeWith(DiseaseEntry other) {
+        Set<String> merged = new LinkedHashSet<>(symptoms);
+        merged.addAll(other.symptoms);
+        return new DiseaseEntry(name, new ArrayList<>(merged), other.prescription, dosageInstruction);
+    }
+
+    /**
+     * Splits a comma-separated list of symptoms into phrases.
+     *
+     * @param symptoms the symptoms, e.g. "fever, dry cough"
+     * @return the trimmed, non-empty phrases
+     */
+    static List<String> splitSymptoms(String symptoms) {
+        List<String> phrases = new ArrayList<>();
+        for (String phrase : Arrays.asList(symptoms.split(","))) {
+            if (!phrase.trim().isEmpty()) {
+                phrases.add(phrase.trim());
+            }
+        }
+        return phrases;
+    }
+
+    /**
+     * Gets the name of the disease.
+     *
+     * @return the disease name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the symptom phrases of the disease.
+     *
+     * @return the symptom phrases, unmodifiable
+     */
+    public List<String> getSymptoms() {
+        return symptoms;
+    }
+
+    /**
+     * Gets the medication to prescribe.
+     *
+     * @return the prescription
+     */
+    public String getPrescription() {
+        return prescription;
+    }
+
+    /**
+     * Gets how to take the medication.
+     *
+     * @return the dosage instruction
+     */
+    public String getDosageInstruction() {
+        return dosageInstruction;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,255 @@
+package VirtualDoctor;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * This class tracks how often each disease was diagnosed recently, to spot outbreaks that all-time totals hide.
+ * Each disease has three fixed rings of buckets: one per minute for the last hour, one per hour for the last day
+ * and one per day for the last month. A bucket packs the time unit it belongs to and its count into a single
+ * long, so recording a case is one compare-and-set per ring: it never locks, never allocates, and a bucket
+ * left over from an earlier lap of the ring is reset by the same compare-and-set.
+ * <p>
+ * A disease is flagged when its cases in the last hour exceed its baseline, the average hourly rate over the
+ * previous days, by the alert factor. No alerts are raised until one full day of history has been collected.
+ */
+public class DiseaseIncidence {
+    static final double DEFAULT_ALERT_FACTOR = 3.0;
+    private static final int MIN_ALERT_CASES = 5;    // Fewer cases in an hour never raise an alert
+    private static final int BASELINE_DAYS = 7;      // Days averaged for the baseline
+    private static final int MINUTE_BUCKETS = 60;
+    private static final int HOUR_BUCKETS = 24;
+    private static final int DAY_BUCKETS = 32;
+    private static final int COUNT_BITS = 24;        // Low bits of a bucket hold the count, high bits the time unit
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final long MILLIS_PER_MINUTE = 60_000L;
+    private static final long MINUTES_PER_DAY = 60 * 24;
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final double alertFactor;
+    private final LongSupplier clock;
+    private final long startMinute;
+
+    /**
+     * Constructor to track incidence with the default alert factor.
+     */
+    public DiseaseIncidence() {
+        this(DEFAULT_ALERT_FACTOR);
+    }
+
+    /**
+     * Constructor to track incidence with the given alert factor.
+     *
+     * @param alertFactor how many times its baseline rate a disease must reach to raise an alert
+     */
+    public DiseaseIncidence(double alertFactor) {
+        this(alertFactor, System::currentTimeMillis);
+    }
+
+    /**
+     * Constructor to track incidence against the given clock.
+     *
+     * @param alertFactor how many times its baseline rate a disease must reach to raise an alert
+     * @param clock the current time in milliseconds
+     */
+    DiseaseIncidence(double alertFactor, LongSupplier clock) {
+        this.alertFactor = alertFactor;
+        this.clock = clock;
+        this.startMinute = clock.getAsLong() / MILLIS_PER_MINUTE;
+    }
+
+    /**
+     * Records one diagnosed case of a disease.
+     *
+     * @param disease the disease
+     * @return true if this case raised an outbreak alert for the disease (at most once per hour), false otherwise
+     */
+    public boolean recordCase(String disease) {
+        Counter counter = counters.get(disease);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(disease, d -> new Counter());
+        }
+        long minute = clock.getAsLong() / MILLIS_PER_MINUTE;
+        long hour = minute / 60;
+        add(counter.minutes, minute);
+        add(counter.hours, hour);
+        add(counter.days, minute / MINUTES_PER_DAY);
+
+        if (!isAlerting(counter, minute)) {
+            return false;
+        }
+        long alerted = counter.alertedHour.get();
+        return alerted != hour && counter.alertedHour.compareAndSet(alerted, hour);
+    }
+
+    /**
+     * Gets the number of cases of a disease in the last 60 minutes.
+     *
+     * @param disease the disease
+     * @return the number of cases
+     */
+    public long getLastHour(String disease) {
+        Counter counter = counters.get(disease);
+        return counter == null ? 0 : sum(counter.minutes, now(), MINUTE_BUCKETS);
+    }
+
+    /**
+     * Gets the number of cases of a disease in the current hour and the 23 before it.
+     *
+     * @param disease the disease
+     * @return the number of cases
+     */
+    public long getLast24Hours(String disease) {
+        Counter counter = counters.get(disease);
+        return counter == null ? 0 : sum(counter.hours, now() / 60, HOUR_BUCKETS);
+    }
+
+    /**
+     * Gets a disease's baseline: its average number of cases per hour over the previous days, not counting today.
+     *
+     * @param disease the disease
+     * @return the baseline hourly rate, or -1 if there is not yet a full day of history
+     */
+    public double getBaselinePerHour(String disease) {
+        Counter counter = counters.get(disease);
+        long minute = now();
+        if (counter == null) {
+            return fullDaysOfHistory(minute) < 1 ? -1 : 0;
+        }
+        return baselinePerHour(counter, minute);
+    }
+
+    /**
+     * Checks whether a disease's rate in the last hour is above its baseline by the alert factor.
+     *
+     * @param disease the disease
+     * @return true if the disease is flagged as a possible outbreak
+     */
+    public boolean isAlerting(String disease) {
+        Counter counter = counters.get(disease);
+        return counter != null && isAlerting(counter, now());
+    }
+
+    /**
+     * Gets the alert factor.
+     *
+     * @return how many times its baseline rate a disease must reach to raise an alert
+     */
+    public double getAlertFactor() {
+        return alertFactor;
+    }
+
+    /**
+     * Gets the diseases with recorded cases.
+     *
+     * @return the disease names in order
+     */
+    public Iterable<String> getDiseases() {
+        return new TreeMap<>(counters).keySet();
+    }
+
+    /**
+     * Gets the current minute since the epoch.
+     *
+     * @return the current minute
+     */
+    private long now() {
+        return clock.getAsLong() / MILLIS_PER_MINUTE;
+    }
+
+    /**
+     * Checks a disease's last hour against its baseline.
+     *
+     * @param counter the disease's buckets
+     * @param minute the current minute
+     * @return true if the disease is flagged as a possible outbreak
+     */
+    private boolean isAlerting(Counter counter, long minute) {
+        long lastHour = sum(counter.minutes, minute, MINUTE_BUCKETS);
+        if (lastHour < MIN_ALERT_CASES) {
+            return false;
+        }
+        double baseline = baselinePerHour(counter, minute);
+        return baseline >= 0 && lastHour > alertFactor * baseline;
+    }
+
+    /**
+     * Averages a disease's cases per hour over the whole days before today, up to the baseline length.
+     *
+     * @param counter the disease's buckets
+     * @param minute the current minute
+     * @return the baseline hourly rate, or -1 if there is not yet a full day of history
+     */
+    private double baselinePerHour(Counter counter, long minute) {
+        int fullDays = fullDaysOfHistory(minute);
+        if (fullDays < 1) {
+            return -1;
+        }
+        long cases = sum(counter.days, minute / MINUTES_PER_DAY - 1, fullDays);
+        return cases / (fullDays * 24.0);
+    }
+
+    /**
+     * Gets the number of whole days, up to the baseline length, that were tracked before today.
+     *
+     * @param minute the current minute
+     * @return the number of days usable for the baseline
+     */
+    private int fullDaysOfHistory(long minute) {
+        long firstFullDay = (startMinute + MINUTES_PER_DAY - 1) / MINUTES_PER_DAY; // The first midnight after starting
+        return (int) Math.max(0, Math.min(BASELINE_DAYS, minute / MINUTES_PER_DAY - firstFullDay));
+    }
+
+    /**
+     * Adds one case to the bucket of a time unit, resetting the bucket first if it still holds an older unit.
+     *
+     * @param ring the ring of buckets
+     * @param unit the time unit (minute, hour or day number)
+     */
+    private static void add(AtomicLongArray ring, long unit) {
+        int index = (int) (unit % ring.length());
+        while (true) {
+            long bucket = ring.get(index);
+            long updated = (bucket >>> COUNT_BITS) == unit
+                    ? (bucket & COUNT_MASK) == COUNT_MASK ? bucket : bucket + 1 // Saturate rather than overflow
+                    : unit << COUNT_BITS | 1;
+            if (ring.compareAndSet(index, bucket, updated)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sums the buckets of the given number of time units up to and including the given unit.
+     *
+     * @param ring the ring of buckets
+     * @param lastUnit the last time unit to include
+     * @param units the number of time units to include, at most the ring size
+     * @return the number of cases
+     */
+    private static long sum(AtomicLongArray ring, long lastUnit, int units) {
+        long total = 0;
+        for (int i = 0; i < ring.length(); i++) {
+            long bucket = ring.get(i);
+            long unit = bucket >>> COUNT_BITS;
+            if (unit <= lastUnit && unit > lastUnit - units) {
+                total += bucket & COUNT_MASK;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * The rings of buckets of one disease.
+     */
+    private static final class Counter {
+        private final AtomicLongArray minutes = new AtomicLongArray(MINUTE_BUCKETS);
+        private final AtomicLongArray hours = new AtomicLongArray(HOUR_BUCKETS);
+        private final AtomicLongArray days = new AtomicLongArray(DAY_BUCKETS);
+        private final AtomicLong alertedHour = new AtomicLong(-1);
+    }
+}
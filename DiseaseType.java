@@ -35,14 +35,4 @@ public enum DiseaseType {
     public String getDosageInstruction() {
         return dosageInstruction;
     }
-
-    public static DiseaseType fromString(String symptomsInput) {
-        for (DiseaseType type : DiseaseType.values()) {
-            // Check if symptomsInput contains any part of the disease's symptoms (case insensitive)
-            if (type.getSymptoms().toLowerCase().contains(symptomsInput.toLowerCase())) {
-                return type;
-            }
-        }
-        return null; // No match found
-    }
 }
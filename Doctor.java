@@ -1,6 +1,11 @@
 package VirtualDoctor;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 /**
@@ -10,20 +15,42 @@ import java.util.Scanner;
  */
 public class Doctor extends Staff {  // Extending Staff class
     private final int id;
-    private static final String SYMPTOMS_DISEASES_FILE = "symptoms_diseases.txt";
-    private static final String DISEASE_CASES_FILE = "disease_cases.txt";
+    private static final int FOLLOW_UP_OPTIONS = 5; // Free slots offered when scheduling a follow-up
+    private final AppointmentCalendar calendar;
+    private final SymptomCatalog symptomCatalog;
+    private final DiseaseCaseCounter caseCounter;
+    private final DiseaseIncidence incidence;
+    private final DiagnosisTrends trends;
+    private final DiagnosisCache diagnosisCache;
+    private final PrescriptionStore prescriptionStore;
 
     /**
-     * Constructor to initialize the doctor's name and ID.
+     * Constructor to initialize the doctor's name, ID, the calendar follow-ups are booked in, the
+     * symptom catalog diagnoses are made from, the cache of its rankings, the store prescriptions are saved in,
+     * and the statistics diagnosed cases are recorded in.
      *
-     * @param name the name of the doctor
-     * @param id   the ID of the doctor
+     * @param name           the name of the doctor
+     * @param id             the ID of the doctor
+     * @param calendar       the appointment calendar, shared with the receptionist
+     * @param symptomCatalog the symptom knowledge base, kept up to date with the symptoms file
+     * @param diagnosisCache the cache of ranked diagnoses over the symptom catalog
+     * @param prescriptionStore the prescriptions file, shared with the pharmacist
+     * @param caseCounter    the disease case counter
+     * @param incidence      the recent incidence tracker that raises outbreak alerts
+     * @param trends         the top diagnoses and reported symptoms
      */
-    public Doctor(String name, int id) {
+    public Doctor(String name, int id, AppointmentCalendar calendar, SymptomCatalog symptomCatalog,
+                  DiagnosisCache diagnosisCache, PrescriptionStore prescriptionStore, DiseaseCaseCounter caseCounter,
+                  DiseaseIncidence incidence, DiagnosisTrends trends) {
         super(name);  // Call to the Staff constructor to initialize name
         this.id = id;
-        loadSymptomsDiseases();
-        loadDiseaseCases();
+        this.calendar = calendar;
+        this.symptomCatalog = symptomCatalog;
+        this.caseCounter = caseCounter;
+        this.incidence = incidence;
+        this.trends = trends;
+        this.diagnosisCache = diagnosisCache;
+        this.prescriptionStore = prescriptionStore;
     }
 
     /**
@@ -46,49 +73,7 @@ public class Doctor extends Staff {  // Extending Staff class
     }
 
     /**
-     * Loads symptom-disease-prescription data from the SYMPTOMS_DISEASES_FILE.
-     */
-    private void loadSymptomsDiseases() {
-        try (BufferedReader reader = new BufferedReader(new FileReader(SYMPTOMS_DISEASES_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(":", 3);
-                if (parts.length == 3) {
-                    // Processing each symptom-disease-prescription entry if found
-                }
-            }
-        } catch (IOException e) {
-            System.out.println("Error loading symptoms and diseases data: " + e.getMessage());
-        }
-    }
-
-    /**
-     * Loads disease case counts from the DISEASE_CASES_FILE.
-     */
-    private void loadDiseaseCases() {
-        File file = new File(DISEASE_CASES_FILE);
-        if (!file.exists()) {
-            try {
-                file.createNewFile();
-            } catch (IOException e) {
-                System.out.println("Error creating disease cases file: " + e.getMessage());
-            }
-        }
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(":", 2);
-                if (parts.length == 2) {
-                    // Process each disease case count
-                }
-            }
-        } catch (IOException e) {
-            System.out.println("Error reading disease cases file: " + e.getMessage());
-        }
-    }
-
-    /**
-     * Adds a new symptom-disease pair to the SYMPTOMS_DISEASES_FILE.
+     * Adds a new symptom-disease pair to the symptom catalog. It can be diagnosed straight away.
      */
     public void addSymptomDiseasePair() {
         Scanner scanner = new Scanner(System.in);
@@ -101,49 +86,14 @@ public class Doctor extends Staff {  // Extending Staff class
         System.out.println("Enter the prescription for " + disease + ":");
         String prescription = scanner.nextLine();
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(SYMPTOMS_DISEASES_FILE, true))) {
-            writer.write(symptoms + " : " + disease + " : " + prescription);
-            writer.newLine();
+        if (symptomCatalog.addEntry(symptoms, disease, prescription)) {
+            caseCounter.addDisease(disease); // Only diseases the catalog knows are reported
             System.out.println("Symptom, disease, and prescription added successfully.");
-        } catch (IOException e) {
-            System.out.println("Error saving symptom-disease-prescription entry: " + e.getMessage());
-        }
-
-        initializeDiseaseCount(disease);
-    }
-
-    /**
-     * Initializes the disease count in the DISEASE_CASES_FILE if the disease doesn't exist.
-     *
-     * @param disease the disease name to initialize
-     */
-    private void initializeDiseaseCount(String disease) {
-        boolean diseaseExists = false;
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(DISEASE_CASES_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.startsWith(disease + " :")) {
-                    diseaseExists = true;
-                    break;
-                }
-            }
-        } catch (IOException e) {
-            System.out.println("Error reading disease cases file: " + e.getMessage());
-        }
-
-        if (!diseaseExists) {
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(DISEASE_CASES_FILE, true))) {
-                writer.write(disease + " : 0");
-                writer.newLine();
-            } catch (IOException e) {
-                System.out.println("Error initializing disease count: " + e.getMessage());
-            }
         }
     }
 
     /**
-     * Diagnoses a patient based on their symptoms using the DiseaseType enum.
+     * Diagnoses a patient based on their symptoms using the symptom knowledge base.
      *
      * @param patient the patient to diagnose
      * @return true if diagnosis is found, false otherwise
@@ -153,13 +103,24 @@ public class Doctor extends Staff {  // Extending Staff class
         System.out.println("Doctor: Welcome " + patient.getName() + ". Please describe your symptoms: (cough, whooping cough, bleeding, headache, etc.)");
         String patientSymptoms = scanner.nextLine().toLowerCase();
 
-        // Using the DiseaseType enum to diagnose the patient
-        DiseaseType diseaseType = DiseaseType.fromString(patientSymptoms);
-        if (diseaseType != null) {
-            System.out.println("Diagnosis: You have " + diseaseType.getDescription());
+        // Ranking the possible diagnoses with the current knowledge base, or from the cache for a repeated complaint
+        List<DiagnosisModel.Diagnosis> ranked = diagnosisCache.rank(patientSymptoms);
+        trends.recordSymptoms(patientSymptoms);
+        if (!ranked.isEmpty()) {
+            DiseaseEntry disease = ranked.get(0).getDisease();
+            caseCounter.recordCase(disease.getName());
+            trends.recordDiagnosis(disease.getName());
+            if (incidence.recordCase(disease.getName())) {
+                System.out.println("Outbreak alert: " + incidence.getLastHour(disease.getName()) + " cases of "
+                        + disease.getName() + " in the last hour.");
+            }
+            System.out.println("Diagnosis: You have " + disease.getName());
+            if (ranked.size() > 1) {
+                System.out.println("Differential diagnosis: " + ranked);
+            }
             // Prescribe medication and show dosage instructions
-            System.out.println("Prescribed: " + diseaseType.getPrescription());
-            // System.out.println("Instructions: " + diseaseType.getDosageInstruction());  // Display the instructions
+            System.out.println("Prescribed: " + disease.getPrescription());
+            // System.out.println("Instructions: " + disease.getDosageInstruction());  // Display the instructions
             return true;
         } else {
             System.out.println("Diagnosis not found.");
@@ -167,44 +128,6 @@ public class Doctor extends Staff {  // Extending Staff class
         }
     }
 
-    /**
-     * Increments the disease count in the DISEASE_CASES_FILE.
-     *
-     * @param disease the disease to increment count for
-     */
-    private void incrementDiseaseCount(String disease) {
-        File tempFile = new File("temp_disease_cases.txt");
-        File originalFile = new File(DISEASE_CASES_FILE);
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(originalFile));
-             BufferedWriter writer = new BufferedWriter(new FileWriter(tempFile))) {
-
-            String line;
-            boolean updated = false;
-            while ((line = reader.readLine()) != null) {
-                if (line.startsWith(disease + " :")) {
-                    int currentCount = Integer.parseInt(line.split(":")[1].trim());
-                    writer.write(disease + " : " + (currentCount + 1));
-                    updated = true;
-                } else {
-                    writer.write(line);
-                }
-                writer.newLine();
-            }
-
-            if (!updated) {
-                writer.write(disease + " : 1");
-                writer.newLine();
-            }
-        } catch (IOException e) {
-            System.out.println("Error updating disease cases file: " + e.getMessage());
-        }
-
-        if (!originalFile.delete() || !tempFile.renameTo(originalFile)) {
-            System.out.println("Error updating disease cases data.");
-        }
-    }
-
     /**
      * Prescribes medication to a patient and schedules a follow-up appointment if necessary.
      *
@@ -229,44 +152,39 @@ public class Doctor extends Staff {  // Extending Staff class
 
     /**
      * Schedules a follow-up appointment for the patient.
+     * The doctor's next free slots from tomorrow on are offered, and the chosen one is booked in the calendar
+     * so that it cannot clash with appointments made by the receptionist.
      *
      * @param patient the patient to schedule a follow-up for
      */
     private void scheduleFollowUp(Patient patient) {
         patient.setFollowUp(true);
+        List<LocalDateTime> options = calendar.nextFreeSlots(getName(), LocalDate.now().plusDays(1).atStartOfDay(),
+                FOLLOW_UP_OPTIONS);
+        if (options.isEmpty()) {
+            System.out.println("No follow-up slots available for " + getName() + ".");
+            return;
+        }
         System.out.println("Please select a follow-up date and time:");
-        System.out.println("1. Monday, 9:00 AM");
-        System.out.println("2. Tuesday, 11:00 AM");
-        System.out.println("3. Wednesday, 1:00 PM");
-        System.out.println("4. Thursday, 3:00 PM");
-        System.out.println("5. Friday, 5:00 PM");
+        for (int i = 0; i < options.size(); i++) {
+            System.out.println((i + 1) + ". " + formatSlot(options.get(i)));
+        }
 
         Scanner scanner = new Scanner(System.in);
         int selectedOption = scanner.hasNextInt() ? scanner.nextInt() : -1;
-        String followUpDate;
-
-        switch (selectedOption) {
-            case 1:
-                followUpDate = "Monday, 9:00 AM";
-                break;
-            case 2:
-                followUpDate = "Tuesday, 11:00 AM";
-                break;
-            case 3:
-                followUpDate = "Wednesday, 1:00 PM";
-                break;
-            case 4:
-                followUpDate = "Thursday, 3:00 PM";
-                break;
-            case 5:
-                followUpDate = "Friday, 5:00 PM";
-                break;
-            default:
-                System.out.println("Invalid selection. No follow-up scheduled.");
-                return;
+        if (selectedOption < 1 || selectedOption > options.size()) {
+            System.out.println("Invalid selection. No follow-up scheduled.");
+            return;
+        }
+        LocalDateTime slot = options.get(selectedOption - 1);
+        if (!calendar.book(new Appointment(patient.getName(), getName(), slot.toLocalDate(), slot.toLocalTime()))) {
+            System.out.println("That slot is no longer available. No follow-up scheduled.");
+            return;
         }
+        String followUpDate = formatSlot(slot);
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter("followup_appointments.txt", true))) {
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream("followup_appointments.txt", true), StandardCharsets.UTF_8))) {
             writer.write("Patient: " + patient.getName() + " - Follow-up on: " + followUpDate + "\n");
             System.out.println("Follow-up appointment scheduled on: " + followUpDate);
         } catch (IOException e) {
@@ -274,6 +192,16 @@ public class Doctor extends Staff {  // Extending Staff class
         }
     }
 
+    /**
+     * Formats a slot for display, e.g. "MONDAY 2024-12-02, 9:00 AM".
+     *
+     * @param slot the start of the slot
+     * @return the formatted slot
+     */
+    private static String formatSlot(LocalDateTime slot) {
+        return slot.getDayOfWeek() + " " + slot.toLocalDate() + ", " + Appointment.TIME_FORMAT.format(slot.toLocalTime());
+    }
+
     /**
      * Prescribes medication for the patient's diagnosis.
      *
@@ -283,17 +211,13 @@ public class Doctor extends Staff {  // Extending Staff class
     private void prescribeMedication(String diagnosis, Patient patient) {
         System.out.println("Prescribing medication for " + diagnosis);
 
-        DiseaseType diseaseType = DiseaseType.fromString(diagnosis);
-        if (diseaseType != null) {
-            String prescription = diseaseType.getPrescription();
+        DiseaseEntry disease = symptomCatalog.current().diagnose(diagnosis);
+        if (disease != null) {
+            String prescription = disease.getPrescription();
             System.out.println("Prescribed: " + prescription);
 
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter("prescriptions.txt", true))) {
-                writer.write("Patient: " + patient.getName() + " - Diagnosis: " + diagnosis + " - Prescribed medications: " + prescription);
-                writer.newLine();
+            if (prescriptionStore.add(new Prescription(patient.getName(), LocalDateTime.now(), diagnosis, prescription))) {
                 System.out.println("Prescription saved for patient: " + patient.getName());
-            } catch (IOException e) {
-                System.out.println("Error saving prescription: " + e.getMessage());
             }
         } else {
             System.out.println("No specific medication found for " + diagnosis);
@@ -301,17 +225,34 @@ public class Doctor extends Staff {  // Extending Staff class
     }
 
     /**
-     * Generates a report on the current disease cases.
+     * Generates a report on the current disease cases from the in-memory counters,
+     * followed by each disease's recent incidence and any outbreak alerts.
      */
     public void generateDiagnosisReport() {
         System.out.println("Generating Diagnosis Report:");
-        try (BufferedReader reader = new BufferedReader(new FileReader(DISEASE_CASES_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                System.out.println(line);
-            }
-        } catch (IOException e) {
-            System.out.println("Error reading disease cases file: " + e.getMessage());
+        for (Map.Entry<String, Long> entry : caseCounter.getCounts().entrySet()) {
+            System.out.println(entry.getKey() + " : " + entry.getValue());
+        }
+
+        System.out.println("Recent Incidence (alert at " + incidence.getAlertFactor() + "x baseline):");
+        for (String disease : incidence.getDiseases()) {
+            double baseline = incidence.getBaselinePerHour(disease);
+            System.out.println(disease + " : " + incidence.getLastHour(disease) + " in the last hour, "
+                    + incidence.getLast24Hours(disease) + " in the last 24 hours, baseline "
+                    + (baseline < 0 ? "not yet available" : String.format("%.2f per hour", baseline))
+                    + (incidence.isAlerting(disease) ? " - OUTBREAK ALERT" : ""));
         }
+
+        System.out.println(String.format("Diagnosis Cache: %d hits, %d misses (%.1f%% hit rate), %d evictions, "
+                        + "%d invalidations, %d of %d entries used", diagnosisCache.getHits(), diagnosisCache.getMisses(),
+                diagnosisCache.getHitRate() * 100, diagnosisCache.getEvictions(), diagnosisCache.getInvalidations(),
+                diagnosisCache.size(), diagnosisCache.getCapacity()));
+    }
+
+    /**
+     * Displays the most common diagnoses and reported symptoms.
+     */
+    public void displayTopDiagnosesAndSymptoms() {
+        trends.displayTopReport();
     }
 }
@@ -0,0 +1,36 @@
+package VirtualDoctor;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class delivers appointment reminders by appending them to a file, one line per reminder.
+ */
+public class FileReminderSink implements ReminderSink {
+    private final String reminderFile;
+
+    /**
+     * Constructor to deliver reminders to the given file.
+     *
+     * @param reminderFile the file reminders are appended to
+     */
+    public FileReminderSink(String reminderFile) {
+        this.reminderFile = reminderFile;
+    }
+
+    /**
+     * Appends a reminder to the file.
+     *
+     * @param reminder the reminder that is due
+     */
+    @Override
+    public synchronized void deliver(Reminder reminder) {
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(reminderFile, true), StandardCharsets.UTF_8))) {
+            writer.write("Reminder: " + reminder.getMessage());
+            writer.newLine();
+        } catch (IOException e) {
+            System.out.println("Error saving reminder: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package VirtualDoctor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * This class finds the most frequent keys in a stream within a fixed memory budget.
+ * Counts are estimated with a count-min sketch: a fixed table of counters with one row per hash function,
+ * where a key's estimate is the smallest of its counters. Estimates can only be too high, never too low,
+ * and conservative updates (raising only the counters that hold the current minimum) keep the error small.
+ * The current top keys are kept in a small min-heap, so memory does not depend on how many distinct keys
+ * the stream contains.
+ */
+public class HeavyHitters {
+    private static final int MAX_KEY_LENGTH = 64; // Longer keys are cut off so the heap's size stays bounded too
+
+    private final int k;
+    private final int width;
+    private final long[][] sketch;
+    private final Map<String, Long> topCounts = new HashMap<>();       // At most k keys
+    private final PriorityQueue<String> topKeys;                       // Same keys, smallest count first
+    private long total;
+
+    /**
+     * Constructor to create an empty tracker.
+     *
+     * @param k the number of top keys to keep
+     * @param width the number of counters per row of the sketch
+     * @param depth the number of rows (hash functions) of the sketch
+     */
+    public HeavyHitters(int k, int width, int depth) {
+        if (k < 1 || width < 1 || depth < 1) {
+            throw new IllegalArgumentException("k, width and depth must be at least 1.");
+        }
+        this.k = k;
+        this.width = width;
+        this.sketch = new long[depth][width];
+        this.topKeys = new PriorityQueue<>(k, (a, b) -> Long.compare(topCounts.get(a), topCounts.get(b)));
+    }
+
+    /**
+     * Counts one occurrence of a key.
+     *
+     * @param key the key
+     */
+    public synchronized void add(String key) {
+        if (key.length() > MAX_KEY_LENGTH) {
+            key = key.substring(0, MAX_KEY_LENGTH);
+        }
+        total++;
+        int hash = key.hashCode();
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < sketch.length; row++) {
+            estimate = Math.min(estimate, sketch[row][index(hash, row)]);
+        }
+        estimate++;
+        for (int row = 0; row < sketch.length; row++) {
+            int column = index(hash, row);
+            if (sketch[row][column] < estimate) {
+                sketch[row][column] = estimate; // Conservative update: only raise counters below the new estimate
+            }
+        }
+
+        if (topCounts.containsKey(key)) {
+            topKeys.remove(key); // Re-inserted below with its new count
+            topCounts.put(key, estimate);
+            topKeys.add(key);
+        } else if (topCounts.size() < k) {
+            topCounts.put(key, estimate);
+            topKeys.add(key);
+        } else if (estimate > topCounts.get(topKeys.peek())) {
+            topCounts.remove(topKeys.poll());
+            topCounts.put(key, estimate);
+            topKeys.add(key);
+        }
+    }
+
+    /**
+     * Estimates how often a key occurred. The estimate is never below the true count.
+     *
+     * @param key the key
+     * @return the estimated count
+     */
+    public synchronized long estimate(String key) {
+        if (key.length() > MAX_KEY_LENGTH) {
+            key = key.substring(0, MAX_KEY_LENGTH);
+        }
+        int hash = key.hashCode();
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < sketch.length; row++) {
+            estimate = Math.min(estimate, sketch[row][index(hash, row)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Gets the top keys with their estimated counts.
+     *
+     * @return the top keys, most frequent first
+     */
+    public synchronized List<Map.Entry<String, Long>> top() {
+        List<Map.Entry<String, Long>> top = new ArrayList<>(topCounts.size());
+        for (Map.Entry<String, Long> entry : topCounts.entrySet()) {
+            top.add(Map.entry(entry.getKey(), entry.getValue())); // Copied, so callers never see later updates
+        }
+        top.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        return top;
+    }
+
+    /**
+     * Gets the number of keys counted so far.
+     *
+     * @return the total count
+     */
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    /**
+     * Maps a key's hash to a column of a row, mixing in the row number so each row acts as its own hash function.
+     *
+     * @param hash the key's hash code
+     * @param row the row
+     * @return the column
+     */
+    private int index(int hash, int row) {
+        long h = hash * 0x9E3779B97F4A7C15L + row * 0xC2B2AE3D27D4EB4FL;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) Math.floorMod(h, (long) width);
+    }
+}
@@ -10,11 +10,21 @@ import java.util.Scanner;
 public class MainController implements Runnable {
     private final Scanner scanner = new Scanner(System.in);
 
-    // Pass names to the constructors
-    private final Receptionist receptionist = new Receptionist("Rachel");
-    private final Doctor doctor = new Doctor("Dr. John Smith", 101);
-    private final Nurse nurse = new Nurse("Alice");
-    private final Pharmacist pharmacist = new Pharmacist("Claire");
+    // Pass names to the constructors; the receptionist and doctor share one appointment calendar
+    private final ReminderScheduler reminders = new ReminderScheduler(new FileReminderSink("reminders.txt"));
+    private final AppointmentCalendar calendar = new AppointmentCalendar(reminders); // Schedules a reminder per booking
+    private final SymptomCatalog symptomCatalog = new SymptomCatalog(); // Reloaded when symptoms_diseases.txt changes
+    private final DiagnosisCache diagnosisCache = new DiagnosisCache(symptomCatalog); // Shared by doctor and pharmacist
+    private final PrescriptionStore prescriptionStore = new PrescriptionStore(); // Shared by doctor and pharmacist
+    private final Receptionist receptionist = new Receptionist("Rachel", calendar);
+    private final DiseaseCaseCounter caseCounter = new DiseaseCaseCounter(); // Checkpointed to disease_cases.txt
+    private final DiseaseIncidence incidence = new DiseaseIncidence(); // Recent cases, for outbreak alerts
+    private final DiagnosisTrends trends = new DiagnosisTrends(); // Top diagnoses and symptoms in bounded memory
+    private final Doctor doctor = new Doctor("Dr. John Smith", 101, calendar, symptomCatalog, diagnosisCache,
+            prescriptionStore, caseCounter, incidence, trends);
+    private final VitalsStore vitalsStore = new VitalsStore(); // Imports patient_vitals.txt on first run
+    private final Nurse nurse = new Nurse("Alice", vitalsStore);
+    private final Pharmacist pharmacist = new Pharmacist("Claire", diagnosisCache, prescriptionStore);
     private final Cashier cashier = new Cashier("John Doe");
     private final RecordManager recordManager = new RecordManager();
     private String currentStaffRole = null;
@@ -30,10 +40,16 @@ public class MainController implements Runnable {
     }
 
     /**
-     * Starts the application by calling the startApplication method.
+     * Rebuilds and starts the appointment reminders, starts watching the symptoms file, checkpointing the disease case counts and flushing prescriptions and vitals, and then starts the application by calling the startApplication method.
      */
     @Override
     public void run() {
+        reminders.load();
+        reminders.start();
+        symptomCatalog.startWatching();
+        caseCounter.startCheckpointing();
+        prescriptionStore.startFlushing();
+        vitalsStore.startFlushing();
         startApplication();
     }
 
@@ -63,6 +79,9 @@ public class MainController implements Runnable {
                     break;
                 case 3:
                     System.out.println("Exiting VirtualDoctor. Thank you!");
+                    caseCounter.checkpoint();
+                    prescriptionStore.close();
+                    vitalsStore.close();
                     return;
                 default:
                     System.out.println("Invalid choice. Please restart the application.");
@@ -121,7 +140,7 @@ public class MainController implements Runnable {
         Patient patient;
         if (choice == 1) {
             patient = registerNewPatient();
-            if (doctor.diagnosePatient(patient)) {
+            if (patient != null && doctor.diagnosePatient(patient)) {
                 handlePharmacistInteraction(patient.getName());
                 handleCashierInteraction(patient.getName());
             }
@@ -141,7 +160,7 @@ public class MainController implements Runnable {
     /**
      * Registers a new patient by collecting necessary information.
      *
-     * @return the newly registered Patient object
+     * @return the newly registered Patient object, or null if the record could not be saved
      */
     private Patient registerNewPatient() {
         System.out.println("Please enter your name:");
@@ -154,7 +173,10 @@ public class MainController implements Runnable {
         String address = scanner.next();
 
         Patient patient = new Patient(name, age, nationality, address);
-        recordManager.addPatientRecord(patient);
+        if (!recordManager.addPatientRecord(patient)) {
+            System.out.println("Your record could not be saved. Please try again.");
+            return null;
+        }
         System.out.println("Patient record created for " + name);
         return patient;
     }
@@ -235,7 +257,9 @@ public class MainController implements Runnable {
             System.out.println("Receptionist Tasks:");
             System.out.println("1. Book an Appointment");
             System.out.println("2. View Appointments");
-            System.out.println("3. Exit to Main Menu");
+            System.out.println("3. Book Earliest Available Appointment");
+            System.out.println("4. Sort Appointments");
+            System.out.println("5. Exit to Main Menu");
 
             if (!scanner.hasNextInt()) {
                 System.out.println("Invalid input. Please enter a number.");
@@ -252,6 +276,12 @@ public class MainController implements Runnable {
                     receptionist.viewAppointments();
                     break;
                 case 3:
+                    receptionist.bookEarliestAvailableAppointment();
+                    break;
+                case 4:
+                    receptionist.sortAppointments();
+                    break;
+                case 5:
                     System.out.println("Exiting to Main Menu...");
                     return;
                 default:
@@ -269,7 +299,8 @@ public class MainController implements Runnable {
             System.out.println("Doctor Tasks:");
             System.out.println("1. Add Diagnoses");
             System.out.println("2. Generate Diagnosis Report");
-            System.out.println("3. Exit to Main Menu");
+            System.out.println("3. Show Top Diagnoses and Symptoms");
+            System.out.println("4. Exit to Main Menu");
 
             if (!scanner.hasNextInt()) {
                 System.out.println("Invalid input. Please enter a number.");
@@ -286,6 +317,9 @@ public class MainController implements Runnable {
                     doctor.generateDiagnosisReport();
                     break;
                 case 3:
+                    doctor.displayTopDiagnosesAndSymptoms();
+                    break;
+                case 4:
                     System.out.println("Exiting to Main Menu...");
                     return;
                 default:
@@ -302,6 +336,7 @@ public class MainController implements Runnable {
         while (true) {
             System.out.println("Nurse Tasks:");
             System.out.println("1. Take Vitals");
+            System.out.println("2. View a Patient's Recent Vitals");
             System.out.println("3. Preview Patient Vitals");
             System.out.println("4. Exit to Main Menu");
 
@@ -318,6 +353,17 @@ public class MainController implements Runnable {
                     String patientName = scanner.next();
                     nurse.takeVitals(patientName);
                     break;
+                case 2:
+                    System.out.println("Enter patient name:");
+                    String name = scanner.next();
+                    System.out.println("Show vitals from the last how many days?");
+                    if (!scanner.hasNextInt()) {
+                        System.out.println("Invalid input. Please enter a number.");
+                        scanner.next();
+                        break;
+                    }
+                    nurse.viewVitals(name, scanner.nextInt());
+                    break;
                 case 3:
                     nurse.previewVitals();
                     break;
@@ -359,7 +405,8 @@ public class MainController implements Runnable {
             System.out.println("Pharmacist Tasks:");
             System.out.println("1. Add Prescription");
             System.out.println("2. View Prescriptions");
-            System.out.println("3. Exit to Main Menu");
+            System.out.println("3. View a Patient's Active Prescriptions");
+            System.out.println("4. Exit to Main Menu");
 
             if (!scanner.hasNextInt()) {
                 System.out.println("Invalid input. Please enter a number.");
@@ -381,6 +428,10 @@ public class MainController implements Runnable {
                     pharmacist.viewPrescriptions();
                     break;
                 case 3:
+                    System.out.println("Enter patient name:");
+                    pharmacist.viewActivePrescriptions(scanner.next());
+                    break;
+                case 4:
                     System.out.println("Exiting to Main Menu...");
                     return;
                 default:
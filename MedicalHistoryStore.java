@@ -0,0 +1,207 @@
+package VirtualDoctor;
+
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class persists patients' medical histories in a single append-only file.
+ * Each entry is stored as one record that points back to the previous entry of the same patient,
+ * so the in-memory index only holds the offset of each patient's latest entry.
+ * A history is read from disk only when it is asked for, then cached in sorted order until memory runs low;
+ * only the most recently read histories are kept, so listing every patient does not leave an entry per patient.
+ * The cache is keyed like the offsets, so every Patient object for the same patient shares it and an append
+ * updates it for all of them.
+ * <p>
+ * Record layout: int record length, long previous offset (-1 for the first entry),
+ * int key length, key bytes, then the entry bytes (UTF-8).
+ */
+public class MedicalHistoryStore {
+    private static final int HEADER_SIZE = 4 + 8 + 4;
+    private static final int MAX_CACHED_HISTORIES = 256;
+
+    private final Map<String, Long> lastOffsets = new HashMap<>(); // Patient key -> offset of the latest entry
+    // Guarded by this; least recently used first
+    private final Map<String, SoftReference<List<String>>> sortedHistories =
+            new LinkedHashMap<String, SoftReference<List<String>>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, SoftReference<List<String>>> eldest) {
+                    return size() > MAX_CACHED_HISTORIES;
+                }
+            };
+    private final Path path;
+    private FileChannel channel;
+
+    /**
+     * Constructor to open the history file and build the offset index from it.
+     *
+     * @param path the history file
+     */
+    public MedicalHistoryStore(String path) {
+        this.path = Paths.get(path);
+        try {
+            channel = FileChannel.open(this.path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            buildIndex();
+        } catch (IOException e) {
+            System.out.println("Error opening medical history file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Appends an entry to a patient's history.
+     *
+     * @param key the case-folded patient name
+     * @param entry the history entry
+     * @throws IOException if the entry cannot be written
+     */
+    public synchronized void append(String key, String entry) throws IOException {
+        if (channel == null) {
+            throw new IOException("Medical history file is not open.");
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] entryBytes = entry.getBytes(StandardCharsets.UTF_8);
+        int length = HEADER_SIZE + keyBytes.length + entryBytes.length;
+        ByteBuffer record = ByteBuffer.allocate(length);
+        record.putInt(length).putLong(lastOffsets.getOrDefault(key, -1L)).putInt(keyBytes.length)
+                .put(keyBytes).put(entryBytes).flip();
+
+        long offset = channel.size();
+        while (record.hasRemaining()) {
+            channel.write(record, offset + record.position());
+        }
+        channel.force(false);
+        lastOffsets.put(key, offset);
+        SoftReference<List<String>> cached = sortedHistories.get(key);
+        List<String> history = cached == null ? null : cached.get();
+        if (history != null) {
+            int position = Collections.binarySearch(history, entry);
+            history.add(position < 0 ? -position - 1 : position, entry);
+        } else if (cached != null) {
+            sortedHistories.remove(key); // Cleared by the garbage collector
+        }
+    }
+
+    /**
+     * Gets a patient's history in sorted order, reading it from disk only if it is not cached.
+     *
+     * @param key the case-folded patient name
+     * @return a copy of the sorted entries, or an empty list if there are none
+     * @throws IOException if the history cannot be read
+     */
+    public synchronized List<String> getSortedHistory(String key) throws IOException {
+        SoftReference<List<String>> cached = sortedHistories.get(key);
+        List<String> history = cached == null ? null : cached.get();
+        if (history == null) {
+            history = load(key);
+            Collections.sort(history); // Sorted once per load, then kept sorted on append
+            sortedHistories.put(key, new SoftReference<>(history));
+        }
+        return new ArrayList<>(history);
+    }
+
+    /**
+     * Reads a patient's whole history from disk.
+     *
+     * @param key the case-folded patient name
+     * @return the entries in the order they were added, or an empty list if there are none
+     * @throws IOException if the history cannot be read
+     */
+    public List<String> load(String key) throws IOException {
+        Long offset;
+        synchronized (this) {
+            offset = lastOffsets.get(key);
+        }
+        if (offset == null || channel == null) {
+            return new ArrayList<>();
+        }
+        List<String> entries = new ArrayList<>();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        long position = offset;
+        while (position >= 0) {
+            header.clear();
+            readFully(header, position);
+            header.flip();
+            int length = header.getInt();
+            long previous = header.getLong();
+            int keyLength = header.getInt();
+            ByteBuffer entry = ByteBuffer.allocate(length - HEADER_SIZE - keyLength);
+            readFully(entry, position + HEADER_SIZE + keyLength);
+            entries.add(new String(entry.array(), StandardCharsets.UTF_8));
+            position = previous;
+        }
+        Collections.reverse(entries); // The chain is walked from newest to oldest
+        return entries;
+    }
+
+    /**
+     * Scans the history file once to find each patient's latest entry.
+     * A partially written record at the end (e.g. after a crash) is cut off. A header no record is written with
+     * means the file is damaged; it is copied aside before the rest of it, which cannot be read, is cut off.
+     *
+     * @throws IOException if the file cannot be read, or a damaged file cannot be copied aside
+     */
+    private void buildIndex() throws IOException {
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        long position = 0;
+        boolean damaged = false;
+        while (position + HEADER_SIZE <= size) {
+            header.clear();
+            readFully(header, position);
+            header.flip();
+            int length = header.getInt();
+            header.getLong();
+            int keyLength = header.getInt();
+            if (length < HEADER_SIZE || keyLength < 0 || keyLength > length - HEADER_SIZE) {
+                damaged = true;
+                break;
+            }
+            if (position + length > size) {
+                break; // Cut short by a crash
+            }
+            ByteBuffer key = ByteBuffer.allocate(keyLength);
+            readFully(key, position + HEADER_SIZE);
+            lastOffsets.put(new String(key.array(), StandardCharsets.UTF_8), position);
+            position += length;
+        }
+        if (position < size) {
+            if (damaged) {
+                Path copy = Paths.get(path + ".damaged-" + System.currentTimeMillis());
+                Files.copy(path, copy);
+                System.out.println("Medical history file is damaged at offset " + position + "; a copy was saved as "
+                        + copy.getFileName() + " and the rest of the file was dropped.");
+            } else {
+                System.out.println("Discarding incomplete medical history record at offset " + position);
+            }
+            channel.truncate(position);
+        }
+    }
+
+    /**
+     * Fills a buffer from the history file starting at the given position.
+     *
+     * @param buffer the buffer to fill
+     * @param position the file position to read from
+     * @throws IOException if the file ends before the buffer is full
+     */
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of medical history file.");
+            }
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package VirtualDoctor;
 
-import java.io.*;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class represents the Nurse role in the VirtualDoctor application.
@@ -11,15 +14,17 @@ import java.util.Scanner;
 public class Nurse extends Staff {  // Extending Staff class
 
     private Scanner scanner = new Scanner(System.in);
-    private static final String VITALS_FILE = "patient_vitals.txt"; // File to store patient vitals
+    private final VitalsStore vitalsStore; // Time series of every patient's vitals
 
     /**
-     * Constructor to initialize the nurse's name.
+     * Constructor to initialize the nurse's name and the store vitals are recorded in.
      *
      * @param name the name of the nurse
+     * @param vitalsStore the vitals store
      */
-    public Nurse(String name) {
+    public Nurse(String name, VitalsStore vitalsStore) {
         super(name);  // Passing the name to the Staff class constructor
+        this.vitalsStore = vitalsStore;
     }
 
     /**
@@ -42,7 +47,7 @@ public class Nurse extends Staff {  // Extending Staff class
 
     /**
      * This method takes the vitals (temperature and blood pressure) for a given patient.
-     * It validates the inputs and saves them to a file.
+     * It validates the inputs and records them in the vitals store.
      *
      * @param patientName the name of the patient
      */
@@ -121,36 +126,63 @@ public class Nurse extends Staff {  // Extending Staff class
     }
 
     /**
-     * This method saves the patient's vitals (temperature and blood pressure) to a file.
+     * This method records the patient's vitals (temperature and blood pressure) in the vitals store.
      *
      * @param patientName the name of the patient
      * @param temperature the temperature of the patient
-     * @param bloodPressure the blood pressure of the patient
+     * @param bloodPressure the blood pressure of the patient, already validated
      */
     private void saveVitalsToFile(String patientName, double temperature, String bloodPressure) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(VITALS_FILE, true))) {
-            writer.write("Patient: " + patientName + " - Temperature: " + temperature + "°C, Blood Pressure: " + bloodPressure);
-            writer.newLine();
-            System.out.println("Vitals saved for patient: " + patientName);
-        } catch (IOException e) {
-            System.out.println("Error saving vitals: " + e.getMessage());
-        }
+        String[] parts = bloodPressure.split("/");
+        vitalsStore.record(patientName, temperature, Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+        System.out.println("Vitals saved for patient: " + patientName);
     }
 
     /**
-     * This method previews all the recorded patient vitals from the vitals file.
+     * This method previews all the recorded patient vitals.
      */
     public void previewVitals() {
         System.out.println("Previewing all patient vitals:");
-        try (BufferedReader reader = new BufferedReader(new FileReader(VITALS_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                System.out.println(line);
-            }
-        } catch (FileNotFoundException e) {
+        boolean any = false;
+        for (VitalsStore.Range readings : vitalsStore.getAllReadings()) {
+            printReadings(readings);
+            any |= readings.size() > 0;
+        }
+        if (!any) {
             System.out.println("No vitals records found.");
-        } catch (IOException e) {
-            System.out.println("Error reading vitals file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * This method shows a patient's vitals recorded over the last given number of days.
+     *
+     * @param patientName the name of the patient
+     * @param days the number of days to look back
+     */
+    public void viewVitals(String patientName, int days) {
+        long now = System.currentTimeMillis();
+        VitalsStore.Range readings = vitalsStore.getReadings(patientName, now - TimeUnit.DAYS.toMillis(days), now + 1);
+        if (readings.size() == 0) {
+            System.out.println("No vitals recorded for " + patientName + " in the last " + days + " days.");
+            return;
+        }
+        System.out.println("Vitals for " + readings.getPatientName() + " in the last " + days + " days:");
+        printReadings(readings);
+    }
+
+    /**
+     * This method prints a patient's readings, one line each.
+     *
+     * @param readings the readings to print
+     */
+    private static void printReadings(VitalsStore.Range readings) {
+        for (int i = 0; i < readings.size(); i++) {
+            LocalDateTime taken = LocalDateTime.ofInstant(Instant.ofEpochMilli(readings.getTimestamp(i)),
+                    ZoneId.systemDefault());
+            System.out.println("Patient: " + readings.getPatientName() + " - " + taken.toLocalDate() + " "
+                    + Appointment.TIME_FORMAT.format(taken.toLocalTime()) + " - Temperature: "
+                    + readings.getTemperature(i) + "°C, Blood Pressure: " + readings.getSystolic(i) + "/"
+                    + readings.getDiastolic(i));
         }
     }
 
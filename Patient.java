@@ -1,8 +1,10 @@
 package VirtualDoctor;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * This class represents a Patient in the VirtualDoctor application.
@@ -15,8 +17,10 @@ public class Patient {
     private final int age; // final to prevent modification after creation
     private final String nationality;
     private final String address;
-    private List<String> medicalHistory = new ArrayList<>(); // encapsulated with private access
+    private List<String> medicalHistory; // encapsulated with private access, allocated on first use
     private boolean followUp;
+    // Once a history store is attached, the history lives on disk and the store caches it
+    private MedicalHistoryStore historyStore;
 
     /**
      * Constructor to initialize a patient's details.
@@ -72,11 +76,69 @@ public class Patient {
 
     /**
      * Adds a new diagnosis entry to the patient's medical history.
+     * The entry is inserted in sorted position, so the history never needs re-sorting for display.
      *
      * @param diagnosis the diagnosis to be added
      */
-    public void addMedicalHistory(String diagnosis) {
-        medicalHistory.add(diagnosis);
+    public synchronized void addMedicalHistory(String diagnosis) {
+        if (historyStore != null) {
+            try {
+                historyStore.append(getHistoryKey(), diagnosis); // Also updates the store's cached history
+            } catch (IOException e) {
+                System.out.println("Error saving medical history: " + e.getMessage());
+            }
+            return;
+        }
+        List<String> history = getMedicalHistory();
+        int position = Collections.binarySearch(history, diagnosis);
+        history.add(position < 0 ? -position - 1 : position, diagnosis);
+    }
+
+    /**
+     * Attaches the store that persists this patient's medical history.
+     * Any history recorded before the store was attached is written to it.
+     * From then on the history is read from the store the first time it is needed.
+     *
+     * @param store the medical history store
+     */
+    synchronized void attachHistoryStore(MedicalHistoryStore store) {
+        List<String> pending = medicalHistory;
+        historyStore = store;
+        medicalHistory = null;
+        if (pending != null) {
+            for (String diagnosis : pending) {
+                addMedicalHistory(diagnosis);
+            }
+        }
+    }
+
+    /**
+     * Gets the patient's medical history in sorted order, from the store once one is attached.
+     *
+     * @return the medical history
+     */
+    private synchronized List<String> getMedicalHistory() {
+        if (historyStore == null) {
+            if (medicalHistory == null) {
+                medicalHistory = new ArrayList<>();
+            }
+            return medicalHistory;
+        }
+        try {
+            return historyStore.getSortedHistory(getHistoryKey());
+        } catch (IOException e) {
+            System.out.println("Error loading medical history: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Gets the key under which this patient's history is stored.
+     *
+     * @return the case-folded patient name
+     */
+    private String getHistoryKey() {
+        return PatientIndex.fold(getName());
     }
 
     /**
@@ -84,36 +146,37 @@ public class Patient {
      */
     public void displayPatientCard() {
         System.out.println("Patient Card:");
-        System.out.println("Name: " + name);
-        System.out.println("Age: " + age);
-        System.out.println("Nationality: " + nationality);
-        System.out.println("Address: " + address);
+        System.out.println("Name: " + getName());
+        System.out.println("Age: " + getAge());
+        System.out.println("Nationality: " + getNationality());
+        System.out.println("Address: " + getAddress());
     }
 
     /**
      * Displays the patient's medical history. If no history is available, it shows a message indicating that.
-     * The history is displayed in sorted order for better readability.
+     * The history is kept in sorted order for better readability.
      */
-    public void displayMedicalHistory() {
-        if (medicalHistory.isEmpty()) {
+    public synchronized void displayMedicalHistory() {
+        List<String> history = getMedicalHistory();
+        if (history.isEmpty()) {
             System.out.println("No medical history available.");
         } else {
-            Collections.sort(medicalHistory); // Sorting for better readability
-            for (String record : medicalHistory) {
+            for (String record : history) {
                 System.out.println(" - " + record);
             }
         }
     }
 
     // Static method to count total patients (showing static method usage)
-    private static int patientCount = 0;
+    // LongAdder spreads concurrent increments over separate cells, so registering terminals never contend on it
+    private static final LongAdder patientCount = new LongAdder();
 
     /**
      * Increments the patient count by 1.
-     * This method is used to keep track of the total number of patients.
+     * This method is used to keep track of the total number of patients and is safe to call from several threads.
      */
     public static void incrementPatientCount() {
-        patientCount++;
+        patientCount.increment();
     }
 
     /**
@@ -122,7 +185,7 @@ public class Patient {
      * @return the total number of patients
      */
     public static int getPatientCount() {
-        return patientCount;
+        return patientCount.intValue();
     }
 
     /**
@@ -0,0 +1,284 @@
+package VirtualDoctor;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * This class stores patient demographics column by column to keep the registry small in memory.
+ * Ages are held in a primitive array, and nationalities and the comma-separated parts of addresses
+ * are dictionary-encoded, so a value shared by many patients is stored once and referenced by an int code.
+ * Patients are handed out as lightweight views that read their fields from the columns.
+ * <p>
+ * Rows are never changed once added and the arrays are only replaced by larger copies, so the views read
+ * their fields optimistically, without taking the lock, and only fall back to the read lock when a row was
+ * added while they were reading.
+ */
+public class PatientColumns {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final StampedLock lock = new StampedLock();
+    private final Dictionary nationalityDictionary = new Dictionary();
+    private final Dictionary addressDictionary = new Dictionary();
+    private String[] names = new String[INITIAL_CAPACITY];
+    private short[] ages = new short[INITIAL_CAPACITY];
+    private int[] nationalities = new int[INITIAL_CAPACITY];
+    // Row i's address parts are addressCodes[addressStarts[i]] up to addressCodes[addressStarts[i + 1]]
+    private int[] addressStarts = new int[INITIAL_CAPACITY + 1];
+    private int[] addressCodes = new int[INITIAL_CAPACITY * 2];
+    private int size = 0;
+
+    /**
+     * Checks whether an age fits the age column, which stores ages as shorts.
+     *
+     * @param age the age
+     * @return true if the age can be stored
+     */
+    public static boolean canStoreAge(int age) {
+        return age >= 0 && age <= Short.MAX_VALUE;
+    }
+
+    /**
+     * Adds a patient's demographics as a new row.
+     *
+     * @param name the name of the patient
+     * @param age the age of the patient
+     * @param nationality the nationality of the patient
+     * @param address the address of the patient
+     * @return a view of the new row
+     * @throws IllegalArgumentException if the age does not fit the age column
+     */
+    public Patient add(String name, int age, String nationality, String address) {
+        if (!canStoreAge(age)) {
+            throw new IllegalArgumentException("Age out of range: " + age);
+        }
+        String[] parts = address.split(",", -1);
+        long stamp = lock.writeLock();
+        try {
+            if (size == names.length) {
+                int capacity = size * 2;
+                names = Arrays.copyOf(names, capacity);
+                ages = Arrays.copyOf(ages, capacity);
+                nationalities = Arrays.copyOf(nationalities, capacity);
+                addressStarts = Arrays.copyOf(addressStarts, capacity + 1);
+            }
+            int start = addressStarts[size];
+            if (start + parts.length > addressCodes.length) {
+                addressCodes = Arrays.copyOf(addressCodes, Math.max(addressCodes.length * 2, start + parts.length));
+            }
+            for (int i = 0; i < parts.length; i++) {
+                addressCodes[start + i] = addressDictionary.encode(parts[i]);
+            }
+            names[size] = name;
+            ages[size] = (short) age;
+            nationalities[size] = nationalityDictionary.encode(nationality);
+            addressStarts[size + 1] = start + parts.length;
+            return new PatientView(this, size++);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Gets a view of a row.
+     *
+     * @param row the row number, in the order patients were added
+     * @return a view of the row
+     */
+    public Patient get(int row) {
+        if (row < 0 || row >= size()) {
+            throw new IndexOutOfBoundsException("No patient at row " + row);
+        }
+        return new PatientView(this, row);
+    }
+
+    /**
+     * Gets the number of rows.
+     *
+     * @return the number of patients stored
+     */
+    public int size() {
+        return readInt(() -> size);
+    }
+
+    /**
+     * Gets the number of distinct nationalities stored.
+     *
+     * @return the size of the nationality dictionary
+     */
+    public int getNationalityCount() {
+        return readInt(() -> nationalityDictionary.size);
+    }
+
+    /**
+     * Reads the name of a row.
+     *
+     * @param row the row number
+     * @return the patient's name
+     */
+    private String getName(int row) {
+        return read(() -> names[row]);
+    }
+
+    /**
+     * Reads the age of a row.
+     *
+     * @param row the row number
+     * @return the patient's age
+     */
+    private int getAge(int row) {
+        return readInt(() -> ages[row]);
+    }
+
+    /**
+     * Reads the nationality of a row.
+     *
+     * @param row the row number
+     * @return the patient's nationality, decoded from its code
+     */
+    private String getNationality(int row) {
+        return read(() -> nationalityDictionary.decode(nationalities[row]));
+    }
+
+    /**
+     * Reads the address of a row.
+     *
+     * @param row the row number
+     * @return the patient's address, rebuilt from its encoded parts
+     */
+    private String getAddress(int row) {
+        return read(() -> {
+            int start = addressStarts[row];
+            int end = addressStarts[row + 1];
+            if (end - start == 1) {
+                return addressDictionary.decode(addressCodes[start]); // Common case: no commas, no copy
+            }
+            StringBuilder address = new StringBuilder();
+            for (int i = start; i < end; i++) {
+                if (i > start) {
+                    address.append(',');
+                }
+                address.append(addressDictionary.decode(addressCodes[i]));
+            }
+            return address.toString();
+        });
+    }
+
+    /**
+     * Reads from the columns under an optimistic stamp, retrying under the read lock if a write intervened.
+     * A read that raced with a write may see a half-grown array and fail; that attempt is discarded too.
+     *
+     * @param reader the read to perform
+     * @param <T> the type of the value read
+     * @return the value read
+     */
+    private <T> T read(Supplier<T> reader) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T value = reader.get();
+                if (lock.validate(stamp)) {
+                    return value;
+                }
+            } catch (RuntimeException e) {
+                // Inconsistent read during a write; retried below
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Reads an int from the columns like read, without boxing it.
+     *
+     * @param reader the read to perform
+     * @return the value read
+     */
+    private int readInt(IntSupplier reader) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                int value = reader.getAsInt();
+                if (lock.validate(stamp)) {
+                    return value;
+                }
+            } catch (RuntimeException e) {
+                // Inconsistent read during a write; retried below
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return reader.getAsInt();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Maps each distinct string to a small int code and back.
+     */
+    private static class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private String[] values = new String[64];
+        private int size = 0;
+
+        int encode(String value) {
+            Integer code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size] = value;
+            codes.put(value, size);
+            return size++;
+        }
+
+        String decode(int code) {
+            return values[code];
+        }
+    }
+
+    /**
+     * A patient whose demographics are read from a row of the columns.
+     * It only holds the columns and its row number; the demographic fields of the Patient base class stay empty.
+     */
+    private static class PatientView extends Patient {
+        private final PatientColumns columns;
+        private final int row;
+
+        PatientView(PatientColumns columns, int row) {
+            super(null, 0, null, null);
+            this.columns = columns;
+            this.row = row;
+        }
+
+        @Override
+        public String getName() {
+            return columns.getName(row);
+        }
+
+        @Override
+        public int getAge() {
+            return columns.getAge(row);
+        }
+
+        @Override
+        public String getNationality() {
+            return columns.getNationality(row);
+        }
+
+        @Override
+        public String getAddress() {
+            return columns.getAddress(row);
+        }
+    }
+}
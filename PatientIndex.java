@@ -0,0 +1,113 @@
+package VirtualDoctor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * This class indexes patients by name so that RecordManager can find them without scanning every record.
+ * Names are case-folded once when a patient is indexed, so lookups never call equalsIgnoreCase.
+ * The index is safe to use from several threads: lookups never take a lock, and additions
+ * only contend when they land on the same hash bin or skip-list node.
+ */
+public class PatientIndex {
+    // Exact lookups: folded name -> first patient registered under that name
+    private final Map<String, Patient> byName = new ConcurrentHashMap<>();
+    // Prefix lookups and listings: folded name -> every patient registered under that name, kept in name order
+    private final NavigableMap<String, Patient[]> byPrefix = new ConcurrentSkipListMap<>();
+
+    /**
+     * Adds a patient to the index.
+     *
+     * @param patient the patient to be indexed
+     */
+    public void add(Patient patient) {
+        String key = fold(patient.getName());
+        byName.putIfAbsent(key, patient); // The first registration wins, as with the old linear scan
+        // Duplicate names are rare, so a one-element array (replaced on each duplicate) is the cheapest holder
+        byPrefix.merge(key, new Patient[] {patient}, (existing, added) -> {
+            Patient[] patients = Arrays.copyOf(existing, existing.length + 1);
+            patients[existing.length] = patient;
+            return patients;
+        });
+    }
+
+    /**
+     * Checks whether the index holds any patients.
+     *
+     * @return true if no patient has been indexed
+     */
+    public boolean isEmpty() {
+        return byName.isEmpty();
+    }
+
+    /**
+     * Finds a patient by name, ignoring case.
+     *
+     * @param name the name of the patient
+     * @return the Patient object if found, or null if no patient has that name
+     */
+    public Patient find(String name) {
+        return byName.get(fold(name));
+    }
+
+    /**
+     * Finds all patients whose name starts with the given prefix, ignoring case.
+     * Only the matching range of the index is visited.
+     *
+     * @param prefix the start of the patient name
+     * @param limit the maximum number of patients to return
+     * @return the matching patients in name order
+     */
+    public List<Patient> findByPrefix(String prefix, int limit) {
+        List<Patient> matches = new ArrayList<>();
+        String from = fold(prefix);
+        for (Patient[] patients : byPrefix.subMap(from, true, from + Character.MAX_VALUE, false).values()) {
+            for (Patient patient : patients) {
+                if (matches.size() >= limit) {
+                    return matches;
+                }
+                matches.add(patient);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Lists one page of patients in name order, starting after the given name.
+     * Patients sharing a name are never split across pages, so a page may hold a few more
+     * than pageSize entries; the name of the last patient on a page is the cursor for the next one.
+     *
+     * @param startAfterName the name to continue after, or null to start from the beginning
+     * @param pageSize the number of patients to return
+     * @return the patients on the page in name order
+     */
+    public List<Patient> page(String startAfterName, int pageSize) {
+        NavigableMap<String, Patient[]> range = startAfterName == null
+                ? byPrefix
+                : byPrefix.tailMap(fold(startAfterName), false);
+        List<Patient> page = new ArrayList<>(pageSize);
+        for (Patient[] patients : range.values()) {
+            if (page.size() >= pageSize) {
+                break;
+            }
+            page.addAll(Arrays.asList(patients));
+        }
+        return page;
+    }
+
+    /**
+     * Case-folds a name for use as an index key.
+     *
+     * @param name the name to fold
+     * @return the folded name
+     */
+    static String fold(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,156 @@
+package VirtualDoctor;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * This class is an append-only journal of patient registrations.
+ * Each registration is appended as one line, so the cost of adding a patient does not grow with the registry.
+ * RecordManager periodically compacts the journal into the patient records snapshot and then resets it.
+ */
+public class PatientJournal {
+    private static final String journalPath = "patient_records.journal";
+
+    private FileOutputStream output; // Kept open so each registration is a single append
+    private int entryCount = 0;
+
+    /**
+     * Replays the journal entries that are not already part of the snapshot.
+     * Each entry carries the registry size after it was added, so entries already compacted into
+     * the snapshot (e.g. if the application stopped between compaction and reset) are skipped.
+     * A partially written last entry (e.g. after a crash) is cut off, so the next append starts on a fresh line.
+     *
+     * @param snapshotSize the number of records loaded from the snapshot
+     * @param consumer receives each replayed patient in registration order
+     */
+    public void replay(int snapshotSize, Consumer<Patient> consumer) {
+        File file = new File(journalPath);
+        if (!file.exists()) {
+            return;
+        }
+        truncateTornEntry(file);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] details = line.split(",", 5); // The address is last, so it may contain commas
+                if (details.length != 5) {
+                    System.out.println("Skipping invalid journal entry: " + line);
+                    continue;
+                }
+                entryCount++;
+                try {
+                    if (Integer.parseInt(details[0]) > snapshotSize) {
+                        consumer.accept(new Patient(details[1], Integer.parseInt(details[2]), details[3], details[4]));
+                    }
+                } catch (NumberFormatException e) {
+                    System.out.println("Skipping invalid journal entry: " + line);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error replaying patient journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Cuts the journal back to the end of its last complete line.
+     *
+     * @param file the journal file
+     */
+    private static void truncateTornEntry(File file) {
+        try (RandomAccessFile journal = new RandomAccessFile(file, "rw")) {
+            long end = journal.length();
+            while (end > 0) {
+                journal.seek(end - 1);
+                if (journal.read() == '\n') {
+                    break;
+                }
+                end--;
+            }
+            if (end < journal.length()) {
+                System.out.println("Discarding incomplete patient journal entry at offset " + end);
+                journal.setLength(end);
+            }
+        } catch (IOException e) {
+            System.out.println("Error repairing patient journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Appends a registration to the journal and forces it to disk.
+     *
+     * @param sequence the registry size after the patient was added
+     * @param patient the registered patient
+     * @throws IOException if the entry cannot be written
+     */
+    public synchronized void append(int sequence, Patient patient) throws IOException {
+        FileOutputStream out = open();
+        out.write(formatEntry(sequence, patient).getBytes(StandardCharsets.UTF_8));
+        out.getChannel().force(false);
+        entryCount++;
+    }
+
+    /**
+     * Appends a batch of registrations with a single write and forces them to disk once.
+     *
+     * @param firstSequence the registry size after the first patient of the batch was added
+     * @param patients the registered patients, in registration order
+     * @throws IOException if the batch cannot be written
+     */
+    public synchronized void appendBatch(int firstSequence, List<Patient> patients) throws IOException {
+        StringBuilder batch = new StringBuilder(patients.size() * 64);
+        int sequence = firstSequence;
+        for (Patient patient : patients) {
+            batch.append(formatEntry(sequence++, patient));
+        }
+        FileOutputStream out = open();
+        out.write(batch.toString().getBytes(StandardCharsets.UTF_8));
+        out.getChannel().force(false);
+        entryCount += patients.size();
+    }
+
+    /**
+     * Formats a registration as one journal line.
+     *
+     * @param sequence the registry size after the patient was added
+     * @param patient the registered patient
+     * @return the journal line, including its line separator
+     */
+    private static String formatEntry(int sequence, Patient patient) {
+        return sequence + "," + patient.getName() + "," + patient.getAge() + ","
+                + patient.getNationality() + "," + patient.getAddress() + System.lineSeparator();
+    }
+
+    /**
+     * Gets the number of entries written since the last reset.
+     *
+     * @return the number of journal entries
+     */
+    public synchronized int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Empties the journal. This is called once its entries are safely part of the snapshot.
+     *
+     * @throws IOException if the journal cannot be truncated
+     */
+    public synchronized void reset() throws IOException {
+        open().getChannel().truncate(0);
+        entryCount = 0;
+    }
+
+    /**
+     * Opens the journal for appending if it is not already open.
+     *
+     * @return the journal output stream
+     * @throws IOException if the journal cannot be opened
+     */
+    private FileOutputStream open() throws IOException {
+        if (output == null) {
+            output = new FileOutputStream(journalPath, true);
+        }
+        return output;
+    }
+}
@@ -0,0 +1,201 @@
+package VirtualDoctor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * This class loads the patient records file in parallel.
+ * The file is memory-mapped and split into chunks that end on a line break, and each chunk is parsed
+ * on the fork-join pool by scanning bytes directly instead of splitting each line with a regex.
+ * The parsed records are returned in file order.
+ */
+public class PatientRecordLoader {
+    private static final long CHUNK_SIZE = 8L * 1024 * 1024; // Bytes per parsing task
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor to create a loader that runs on the common fork-join pool.
+     */
+    public PatientRecordLoader() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor to create a loader that runs on the given pool.
+     *
+     * @param pool the pool used to parse chunks
+     */
+    public PatientRecordLoader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Loads all patient records from a file written as name,age,nationality,address lines.
+     * Lines that do not have four fields or a numeric age are skipped.
+     *
+     * @param file the patient records file
+     * @return the patients in file order
+     * @throws IOException if the file cannot be read
+     */
+    public List<Patient> load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<ChunkTask> chunks = new ArrayList<>();
+            long start = 0;
+            while (start < size) {
+                long end = start + CHUNK_SIZE >= size ? size : lineEnd(channel, start + CHUNK_SIZE - 1, size);
+                chunks.add(new ChunkTask(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start)));
+                start = end;
+            }
+            return pool.invoke(new LoadTask(chunks));
+        }
+    }
+
+    /**
+     * Finds the end of the line that contains the given position.
+     *
+     * @param channel the open file
+     * @param from the position to search from
+     * @param size the size of the file
+     * @return the position just after the next line break, or the file size if there is none
+     * @throws IOException if the file cannot be read
+     */
+    private static long lineEnd(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer scan = ByteBuffer.allocate(8192);
+        long position = from;
+        while (position < size) {
+            scan.clear();
+            int read = channel.read(scan, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Parses every chunk in parallel and merges the results in file order.
+     */
+    private static class LoadTask extends RecursiveTask<List<Patient>> {
+        private static final long serialVersionUID = 1L;
+        private final List<ChunkTask> chunks;
+
+        LoadTask(List<ChunkTask> chunks) {
+            this.chunks = chunks;
+        }
+
+        @Override
+        protected List<Patient> compute() {
+            ForkJoinTask.invokeAll(chunks);
+            List<Patient> patients = new ArrayList<>();
+            for (ChunkTask chunk : chunks) {
+                patients.addAll(chunk.join());
+            }
+            return patients;
+        }
+    }
+
+    /**
+     * Parses the lines of one chunk into patients.
+     */
+    private static class ChunkTask extends RecursiveTask<List<Patient>> {
+        private static final long serialVersionUID = 1L;
+        private final MappedByteBuffer buffer;
+        private final int length;
+
+        ChunkTask(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+            this.length = buffer.limit();
+        }
+
+        @Override
+        protected List<Patient> compute() {
+            List<Patient> patients = new ArrayList<>(length / 48 + 1);
+            byte[] line = new byte[256];
+            int position = 0;
+            while (position < length) {
+                int end = position;
+                while (end < length && buffer.get(end) != '\n') {
+                    end++;
+                }
+                int lineLength = end - position;
+                if (lineLength > 0 && buffer.get(end - 1) == '\r') {
+                    lineLength--;
+                }
+                if (lineLength > line.length) {
+                    line = new byte[Math.max(lineLength, line.length * 2)];
+                }
+                buffer.get(position, line, 0, lineLength);
+                Patient patient = parseLine(line, lineLength);
+                if (patient != null) {
+                    patients.add(patient);
+                }
+                position = end + 1;
+            }
+            return patients;
+        }
+    }
+
+    /**
+     * Parses one name,age,nationality,address line. The address is the rest of the line, so it may contain commas.
+     *
+     * @param line the bytes of the line
+     * @param length the number of bytes in the line
+     * @return the parsed patient, or null if the line is not a valid record
+     */
+    static Patient parseLine(byte[] line, int length) {
+        int first = indexOf(line, 0, length);
+        int second = first < 0 ? -1 : indexOf(line, first + 1, length);
+        int third = second < 0 ? -1 : indexOf(line, second + 1, length);
+        if (third < 0 || second == first + 1) {
+            return null;
+        }
+        int age = 0;
+        for (int i = first + 1; i < second; i++) {
+            int digit = line[i] - '0';
+            if (digit < 0 || digit > 9 || age > 100_000) {
+                return null;
+            }
+            age = age * 10 + digit;
+        }
+        return new Patient(
+                new String(line, 0, first, StandardCharsets.UTF_8),
+                age,
+                new String(line, second + 1, third - second - 1, StandardCharsets.UTF_8),
+                new String(line, third + 1, length - third - 1, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Finds the next comma in a line.
+     *
+     * @param line the bytes of the line
+     * @param from the position to start from
+     * @param length the number of bytes in the line
+     * @return the position of the comma, or -1 if there is none
+     */
+    private static int indexOf(byte[] line, int from, int length) {
+        for (int i = from; i < length; i++) {
+            if (line[i] == ',') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,176 @@
+package VirtualDoctor;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * This class reads and writes the binary snapshot of the patient registry.
+ * The snapshot layout (version 1) is:
+ * <pre>
+ *   int  magic ("VDPS")
+ *   int  version
+ *   int  record count
+ *   records: name, age, nationality, address
+ *            (each string is a varint byte length followed by UTF-8 bytes; the age is a varint)
+ *   long CRC32 of everything before it
+ * </pre>
+ * Fields are length-prefixed, so addresses and names may contain any character, including commas.
+ */
+public class PatientSnapshot {
+    private static final int MAGIC = 0x56445053; // "VDPS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+    private static final int TRAILER_SIZE = 8;
+
+    /**
+     * Writes the patients to a snapshot file.
+     * The snapshot is written to a temporary file first and then moved over the old one.
+     *
+     * @param file the snapshot file
+     * @param patients the patients to write
+     * @throws IOException if the snapshot cannot be written
+     */
+    public static void write(Path file, Collection<Patient> patients) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        CRC32 checksum = new CRC32();
+        try (FileOutputStream fileOut = new FileOutputStream(temp.toFile());
+             BufferedOutputStream buffered = new BufferedOutputStream(fileOut, 1 << 16);
+             DataOutputStream out = new DataOutputStream(new CheckedOutputStream(buffered, checksum))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(patients.size());
+            for (Patient patient : patients) {
+                writeString(out, patient.getName());
+                writeVarInt(out, patient.getAge());
+                writeString(out, patient.getNationality());
+                writeString(out, patient.getAddress());
+            }
+            out.flush();
+            new DataOutputStream(buffered).writeLong(checksum.getValue()); // The trailer is not part of the checksum
+            buffered.flush();
+            fileOut.getChannel().force(false);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads all patients from a snapshot file.
+     *
+     * @param file the snapshot file
+     * @return the patients in the order they were written
+     * @throws IOException if the file cannot be read, is not a version 1 snapshot, or fails its checksum
+     */
+    public static List<Patient> read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + TRAILER_SIZE) {
+                throw new IOException("Patient snapshot is truncated.");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a patient snapshot: " + file);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported patient snapshot version " + version + ".");
+            }
+            int count = buffer.getInt();
+
+            int recordsEnd = (int) size - TRAILER_SIZE;
+            CRC32 checksum = new CRC32();
+            checksum.update(buffer.slice(0, recordsEnd));
+            if (checksum.getValue() != buffer.getLong(recordsEnd)) {
+                throw new IOException("Patient snapshot checksum mismatch.");
+            }
+
+            List<Patient> patients = new ArrayList<>(count);
+            byte[] scratch = new byte[256];
+            for (int i = 0; i < count; i++) {
+                String name = readString(buffer, scratch);
+                int age = readVarInt(buffer);
+                String nationality = readString(buffer, scratch);
+                String address = readString(buffer, scratch);
+                patients.add(new Patient(name, age, nationality, address));
+            }
+            if (buffer.position() != recordsEnd) {
+                throw new IOException("Patient snapshot record count does not match its contents.");
+            }
+            return patients;
+        } catch (RuntimeException e) {
+            // A corrupt length field surfaces as a buffer exception
+            throw new IOException("Patient snapshot is corrupt: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes a length-prefixed UTF-8 string.
+     *
+     * @param out the stream to write to
+     * @param value the string to write
+     * @throws IOException if the string cannot be written
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Writes a non-negative int using seven bits per byte, so small values take a single byte.
+     *
+     * @param out the stream to write to
+     * @param value the value to write
+     * @throws IOException if the value cannot be written
+     */
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Reads an int written by writeVarInt.
+     *
+     * @param buffer the buffer to read from
+     * @return the value that was read
+     */
+    private static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 string.
+     *
+     * @param buffer the buffer to read from
+     * @param scratch a reusable buffer for the string bytes
+     * @return the string that was read
+     */
+    private static String readString(ByteBuffer buffer, byte[] scratch) {
+        int length = readVarInt(buffer);
+        byte[] bytes = length <= scratch.length ? scratch : new byte[length];
+        buffer.get(bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -1,20 +1,22 @@
 package VirtualDoctor;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Scanner;
 
 public class Pharmacist extends Staff { // Extending Staff class
 
     private final Scanner scanner = new Scanner(System.in);
-    private static final String PRESCRIPTION_FILE = "prescriptions.txt"; // File path for prescriptions
+    private static final int VIEW_PAGE_SIZE = 20; // Prescriptions shown per page
 
-    // Constructor to initialize name
-    public Pharmacist(String name) {
+    private final DiagnosisCache diagnosisCache; // Ranked diagnoses, shared with the doctor
+    private final PrescriptionStore prescriptionStore; // Prescriptions, shared with the doctor
+
+    // Constructor to initialize name, the diagnosis cache used to look up medications and the prescription store
+    public Pharmacist(String name, DiagnosisCache diagnosisCache, PrescriptionStore prescriptionStore) {
         super(name); // Call to the Staff class constructor to initialize the name
+        this.diagnosisCache = diagnosisCache;
+        this.prescriptionStore = prescriptionStore;
     }
 
     @Override
@@ -35,13 +37,13 @@ public class Pharmacist extends Staff { // Extending Staff class
         System.out.println("\n--- Medication Receipt ---");
         System.out.println("Patient Name: " + patientName);
 
-        // Use the enum to get the disease type based on the prescription
-        DiseaseType diseaseType = DiseaseType.fromString(prescription);
+        // Look up the most probable disease for the prescription; repeated ones come from the cache
+        DiseaseEntry disease = diagnosisCache.diagnose(prescription);
 
-        if (diseaseType != null) {
-            // Display prescription and instructions using the enum
-            System.out.println("Medicine Prescription by Doc : " + diseaseType.getPrescription());
-            System.out.println("Instructions: " + diseaseType.getDosageInstruction());
+        if (disease != null) {
+            // Display prescription and instructions from the knowledge base
+            System.out.println("Medicine Prescription by Doc : " + disease.getPrescription());
+            System.out.println("Instructions: " + disease.getDosageInstruction());
         } else {
             System.out.println("Prescription: " + prescription);
             System.out.println("Instructions: Take one pill two times daily before meals.");
@@ -68,27 +70,48 @@ public class Pharmacist extends Staff { // Extending Staff class
         }
     }
 
-    // Method to add a prescription to `prescriptions.txt`
+    // Method to add a prescription to the prescription store
     public void addPrescription(String patientName, String prescription) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(PRESCRIPTION_FILE, true))) {
-            writer.write("Patient: " + patientName + ", Prescription: " + prescription);
-            writer.newLine();
+        if (prescriptionStore.add(new Prescription(patientName, LocalDateTime.now(), null, prescription))) {
             System.out.println("Prescription saved for patient: " + patientName);
-        } catch (IOException e) {
-            System.out.println("Error saving prescription: " + e.getMessage());
         }
     }
 
-    // Method to view all prescriptions
+    // Method to view all prescriptions, read from the file a page at a time
     public void viewPrescriptions() {
         System.out.println("All Prescriptions:");
-        try (BufferedReader reader = new BufferedReader(new FileReader(PRESCRIPTION_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                System.out.println(line);
+        long offset = 0;
+        while (true) {
+            PrescriptionStore.Page page = prescriptionStore.readPage(offset, VIEW_PAGE_SIZE);
+            for (Prescription prescription : page.getPrescriptions()) {
+                System.out.println(prescription);
+            }
+            if (page.getNextOffset() < 0) {
+                if (offset == 0 && page.getPrescriptions().isEmpty()) {
+                    System.out.println("No prescriptions found.");
+                }
+                return;
             }
-        } catch (IOException e) {
-            System.out.println("Error reading prescriptions: " + e.getMessage());
+            offset = page.getNextOffset();
+            System.out.println("1. Next page");
+            System.out.println("2. Back");
+            if (scanner.nextInt() != 1) {
+                return;
+            }
+        }
+    }
+
+    // Method to view the prescriptions a patient was issued in the last week, read through the patient index
+    public void viewActivePrescriptions(String patientName) {
+        List<Prescription> active = prescriptionStore.getActivePrescriptions(patientName);
+        if (active.isEmpty()) {
+            System.out.println("No active prescriptions for " + patientName + ".");
+            return;
+        }
+        System.out.println("Active Prescriptions for " + patientName + " (last " + PrescriptionStore.ACTIVE_DAYS
+                + " days):");
+        for (Prescription prescription : active) {
+            System.out.println(prescription);
         }
     }
 
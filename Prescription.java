@@ -0,0 +1,186 @@
+package VirtualDoctor;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * This class represents a prescription issued to a patient, optionally for a diagnosis.
+ * It also converts prescriptions to and from the lines stored in the prescriptions file. Records are
+ * written as tab-separated fields, "Rx", issue time, patient, diagnosis and medication, with tabs,
+ * line breaks and backslashes in the values escaped, so any value reads back exactly.
+ * Lines written before the structured format, "Patient: X - Diagnosis: D - Prescribed medications: M" by the
+ * doctor and "Patient: X, Prescription: M" by the pharmacist, are still read; they have no issue time.
+ */
+public class Prescription {
+    static final String RECORD_TAG = "Rx";
+    private static final String DOCTOR_PATIENT = "Patient: ";
+    private static final String DOCTOR_DIAGNOSIS = " - Diagnosis: ";
+    private static final String DOCTOR_MEDICATION = " - Prescribed medications: ";
+    private static final String PHARMACIST_MEDICATION = ", Prescription: ";
+
+    private final String patientName;
+    private final LocalDateTime issued;
+    private final String diagnosis;
+    private final String medication;
+
+    /**
+     * Constructor to initialize a prescription.
+     *
+     * @param patientName the patient the prescription is for
+     * @param issued when the prescription was issued, or null if unknown
+     * @param diagnosis the diagnosis it treats, or null if none was given
+     * @param medication the prescribed medication
+     */
+    public Prescription(String patientName, LocalDateTime issued, String diagnosis, String medication) {
+        this.patientName = patientName;
+        this.issued = issued == null ? null : issued.truncatedTo(ChronoUnit.MINUTES);
+        this.diagnosis = diagnosis == null || diagnosis.isEmpty() ? null : diagnosis;
+        this.medication = medication;
+    }
+
+    /**
+     * Gets the patient the prescription is for.
+     *
+     * @return the patient's name
+     */
+    public String getPatientName() {
+        return patientName;
+    }
+
+    /**
+     * Gets when the prescription was issued.
+     *
+     * @return the issue time, or null for prescriptions saved before issue times were recorded
+     */
+    public LocalDateTime getIssued() {
+        return issued;
+    }
+
+    /**
+     * Gets the diagnosis the prescription treats.
+     *
+     * @return the diagnosis, or null if none was given
+     */
+    public String getDiagnosis() {
+        return diagnosis;
+    }
+
+    /**
+     * Gets the prescribed medication.
+     *
+     * @return the medication
+     */
+    public String getMedication() {
+        return medication;
+    }
+
+    /**
+     * Checks whether the prescription was issued within the given number of days before a time.
+     *
+     * @param now the current time
+     * @param days the number of days a prescription stays active
+     * @return true if the prescription is active; prescriptions without an issue time never are
+     */
+    public boolean isActive(LocalDateTime now, int days) {
+        return issued != null && !issued.isAfter(now) && issued.isAfter(now.minusDays(days));
+    }
+
+    /**
+     * Formats the prescription as a line of the prescriptions file.
+     *
+     * @return the prescription line, without a line separator
+     */
+    public String format() {
+        return RECORD_TAG + '\t' + (issued == null ? "" : issued.toString()) + '\t' + escape(patientName) + '\t'
+                + (diagnosis == null ? "" : escape(diagnosis)) + '\t' + escape(medication);
+    }
+
+    @Override
+    public String toString() {
+        return "Patient: " + patientName + (issued == null ? "" : " - Issued: " + issued.toLocalDate() + " "
+                + Appointment.TIME_FORMAT.format(issued.toLocalTime()))
+                + (diagnosis == null ? "" : " - Diagnosis: " + diagnosis) + " - Prescription: " + medication;
+    }
+
+    /**
+     * Parses a line of the prescriptions file, in the structured format or either of the older ones.
+     *
+     * @param line the prescription line
+     * @return the prescription, or null if the line is not a prescription
+     */
+    public static Prescription parse(String line) {
+        if (line.startsWith(RECORD_TAG + '\t')) {
+            String[] fields = line.split("\t", -1);
+            if (fields.length != 5) {
+                return null;
+            }
+            try {
+                LocalDateTime issued = fields[1].isEmpty() ? null : LocalDateTime.parse(fields[1]);
+                return new Prescription(unescape(fields[2]), issued, unescape(fields[3]), unescape(fields[4]));
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+        if (!line.startsWith(DOCTOR_PATIENT)) {
+            return null;
+        }
+        int diagnosisStart = line.indexOf(DOCTOR_DIAGNOSIS);
+        int medicationStart = line.indexOf(DOCTOR_MEDICATION);
+        if (diagnosisStart >= 0 && medicationStart > diagnosisStart) {
+            return new Prescription(line.substring(DOCTOR_PATIENT.length(), diagnosisStart), null,
+                    line.substring(diagnosisStart + DOCTOR_DIAGNOSIS.length(), medicationStart),
+                    line.substring(medicationStart + DOCTOR_MEDICATION.length()));
+        }
+        medicationStart = line.indexOf(PHARMACIST_MEDICATION);
+        if (medicationStart >= 0) {
+            return new Prescription(line.substring(DOCTOR_PATIENT.length(), medicationStart), null, null,
+                    line.substring(medicationStart + PHARMACIST_MEDICATION.length()));
+        }
+        return null;
+    }
+
+    /**
+     * Escapes the characters that would break a record line.
+     *
+     * @param value the field value
+     * @return the escaped value
+     */
+    private static String escape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\': escaped.append("\\\\"); break;
+                case '\t': escaped.append("\\t"); break;
+                case '\n': escaped.append("\\n"); break;
+                case '\r': escaped.append("\\r"); break;
+                default: escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Reverses escape.
+     *
+     * @param value the escaped field value
+     * @return the original value
+     */
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder unescaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                unescaped.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                unescaped.append(c);
+            }
+        }
+        return unescaped.toString();
+    }
+}
@@ -0,0 +1,402 @@
+package VirtualDoctor;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is the prescriptions file shared by the doctor and the pharmacist.
+ * New prescriptions are appended as structured Prescription records through one writer that stays open,
+ * and are flushed in batches: after every few records, on a timer, and before any read. A crash can lose
+ * only the prescriptions of the batch being written. If a write fails, the batch is dropped and the index is
+ * rebuilt from the file, so it never points at records that did not reach the file.
+ * <p>
+ * When the store is opened the file is scanned once, older line formats included, to build an index from
+ * each patient (by case-folded name) to the byte offsets and lengths of their records. Looking up a patient's
+ * prescriptions then reads just those records, so its cost depends on the number of results, not on the size
+ * of the file.
+ */
+public class PrescriptionStore {
+    private static final String PRESCRIPTION_FILE = "prescriptions.txt";
+    static final int ACTIVE_DAYS = 7;                   // A prescription is active for a week after it is issued
+    private static final int FLUSH_BATCH = 32;          // Records written before the writer is flushed
+    private static final long FLUSH_INTERVAL_SECONDS = 1;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    private final File file;
+    private final Map<String, RecordList> byPatient = new HashMap<>(); // Folded name -> that patient's records
+    private OutputStream writer;     // All fields are guarded by this
+    private FileOutputStream fileOut; // The file stream writer buffers for; closed directly to drop a failed batch
+    private RandomAccessFile reader;
+    private long length;             // Bytes in the file, including records not yet flushed
+    private int unflushed;           // Records written since the last flush
+    private boolean needsSeparator;  // The file does not end with a line break
+
+    /**
+     * Constructor to open the default prescriptions file.
+     */
+    public PrescriptionStore() {
+        this(PRESCRIPTION_FILE);
+    }
+
+    /**
+     * Constructor to open the given prescriptions file and index the prescriptions already in it.
+     *
+     * @param prescriptionFile the prescriptions file
+     */
+    public PrescriptionStore(String prescriptionFile) {
+        this.file = new File(prescriptionFile);
+        load();
+    }
+
+    /**
+     * Starts a daemon thread that flushes written prescriptions at a fixed interval.
+     */
+    public void startFlushing() {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "prescription-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Saves a prescription.
+     *
+     * @param prescription the prescription
+     * @return true if the prescription was written, false otherwise
+     */
+    public synchronized boolean add(Prescription prescription) {
+        byte[] record = prescription.format().getBytes(StandardCharsets.UTF_8);
+        try {
+            if (writer == null) {
+                fileOut = new FileOutputStream(file, true);
+                writer = new BufferedOutputStream(fileOut);
+            }
+            if (needsSeparator) {
+                writer.write(LINE_SEPARATOR);
+                length += LINE_SEPARATOR.length;
+                needsSeparator = false;
+            }
+            writer.write(record);
+            writer.write(LINE_SEPARATOR);
+        } catch (IOException e) {
+            System.out.println("Error saving prescription: " + e.getMessage());
+            recover();
+            return false;
+        }
+        byPatient.computeIfAbsent(PatientIndex.fold(prescription.getPatientName()), p -> new RecordList())
+                .add(length, record.length);
+        length += record.length + LINE_SEPARATOR.length;
+        if (++unflushed >= FLUSH_BATCH) {
+            flush();
+        }
+        return true;
+    }
+
+    /**
+     * Gets all prescriptions of a patient.
+     *
+     * @param patientName the patient's name, in any case
+     * @return the patient's prescriptions, oldest first
+     */
+    public synchronized List<Prescription> getPrescriptions(String patientName) {
+        RecordList records = byPatient.get(PatientIndex.fold(patientName));
+        List<Prescription> prescriptions = new ArrayList<>();
+        if (records == null || !flush()) {
+            return prescriptions;
+        }
+        try {
+            if (reader == null) {
+                reader = new RandomAccessFile(file, "r");
+            }
+            byte[] buffer = new byte[0];
+            for (int i = 0; i < records.size; i++) {
+                int recordLength = records.lengths[i];
+                if (buffer.length < recordLength) {
+                    buffer = new byte[recordLength];
+                }
+                reader.seek(records.offsets[i]);
+                reader.readFully(buffer, 0, recordLength);
+                Prescription prescription = Prescription.parse(new String(buffer, 0, recordLength, StandardCharsets.UTF_8));
+                if (prescription != null) {
+                    prescriptions.add(prescription);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading prescriptions: " + e.getMessage());
+        }
+        return prescriptions;
+    }
+
+    /**
+     * Gets the prescriptions a patient was issued within the last ACTIVE_DAYS days.
+     *
+     * @param patientName the patient's name, in any case
+     * @return the patient's active prescriptions, oldest first
+     */
+    public List<Prescription> getActivePrescriptions(String patientName) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Prescription> active = new ArrayList<>();
+        for (Prescription prescription : getPrescriptions(patientName)) {
+            if (prescription.isActive(now, ACTIVE_DAYS)) {
+                active.add(prescription);
+            }
+        }
+        return active;
+    }
+
+    /**
+     * Reads a page of the prescriptions file, starting at a byte offset. Only the page is read, so listing
+     * the whole file a page at a time costs one pass over it, and stopping early costs nothing more.
+     *
+     * @param offset the offset to start at: 0 for the first page, then the previous page's next offset
+     * @param limit the maximum number of prescriptions to return
+     * @return the page, with the offset the next page starts at
+     */
+    public synchronized Page readPage(long offset, int limit) {
+        List<Prescription> prescriptions = new ArrayList<>();
+        if (!flush() || !file.exists()) {
+            return new Page(prescriptions, -1);
+        }
+        long position = offset;
+        try (FileInputStream stream = new FileInputStream(file)) {
+            stream.getChannel().position(offset);
+            InputStream in = new BufferedInputStream(stream, READ_BUFFER_SIZE);
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            while (prescriptions.size() < limit) {
+                int b = in.read();
+                if (b == -1) {
+                    // A last line without a line break
+                    if (line.size() > 0) {
+                        addIfPrescription(prescriptions, line);
+                        position += line.size();
+                    }
+                    return new Page(prescriptions, -1);
+                }
+                position++;
+                if (b == '\n') {
+                    addIfPrescription(prescriptions, line);
+                    line.reset();
+                } else {
+                    line.write(b);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading prescriptions: " + e.getMessage());
+            return new Page(prescriptions, -1);
+        }
+        return new Page(prescriptions, position < length ? position : -1);
+    }
+
+    /**
+     * Parses one line read by readPage and adds it to the page if it is a prescription.
+     *
+     * @param prescriptions the prescriptions on the page so far
+     * @param line the bytes of the line, without the line feed
+     */
+    private static void addIfPrescription(List<Prescription> prescriptions, ByteArrayOutputStream line) {
+        String text = line.toString(StandardCharsets.UTF_8);
+        if (text.endsWith("\r")) {
+            text = text.substring(0, text.length() - 1);
+        }
+        Prescription prescription = Prescription.parse(text);
+        if (prescription != null) {
+            prescriptions.add(prescription);
+        }
+    }
+
+    /**
+     * Writes any buffered prescriptions to the file.
+     *
+     * @return true if everything written so far is in the file, false otherwise
+     */
+    public synchronized boolean flush() {
+        if (unflushed == 0) {
+            return true;
+        }
+        try {
+            writer.flush();
+            unflushed = 0;
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error saving prescriptions: " + e.getMessage());
+            recover();
+            return false;
+        }
+    }
+
+    /**
+     * Drops the writer after a failed write, with the records still in its buffer, and indexes the file again,
+     * so no offset points past what reached the file. The next prescription starts on a new line after whatever
+     * part of the batch was written.
+     */
+    private void recover() {
+        if (fileOut != null) {
+            try {
+                fileOut.close(); // Not through the buffered writer, which would write part of the batch again
+            } catch (IOException e) {
+                System.out.println("Error closing prescriptions file: " + e.getMessage());
+            }
+        }
+        writer = null;
+        fileOut = null;
+        unflushed = 0;
+        byPatient.clear();
+        length = 0;
+        needsSeparator = false;
+        load();
+    }
+
+    /**
+     * Flushes and closes the file.
+     */
+    public synchronized void close() {
+        flush();
+        closeWriter();
+        try {
+            if (reader != null) {
+                reader.close();
+                reader = null;
+            }
+        } catch (IOException e) {
+            System.out.println("Error closing prescriptions file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Scans the prescriptions file and indexes every record by patient.
+     */
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] buffer = new byte[READ_BUFFER_SIZE];
+            int filled = 0;   // Bytes in the buffer
+            long bufferStart = 0; // File offset of the buffer's first byte
+            int read;
+            while ((read = in.read(buffer, filled, buffer.length - filled)) != -1) {
+                filled += read;
+                int lineStart = 0;
+                for (int i = 0; i < filled; i++) {
+                    if (buffer[i] == '\n') {
+                        index(buffer, lineStart, i, bufferStart);
+                        lineStart = i + 1;
+                    }
+                }
+                // Keep the unfinished last line, growing the buffer if one line fills it
+                filled -= lineStart;
+                System.arraycopy(buffer, lineStart, buffer, 0, filled);
+                bufferStart += lineStart;
+                if (filled == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+            }
+            // A last line without a line break: older formats may end that way, but a structured record is always
+            // written with one, so without it the record was cut short by a failed write or a crash
+            if (!new String(buffer, 0, filled, StandardCharsets.UTF_8).startsWith(Prescription.RECORD_TAG + '\t')) {
+                index(buffer, 0, filled, bufferStart);
+            }
+            length = bufferStart + filled;
+            needsSeparator = filled > 0;
+        } catch (IOException e) {
+            System.out.println("Error reading prescriptions: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Indexes one line of the prescriptions file, if it is a prescription.
+     *
+     * @param buffer the bytes read from the file
+     * @param start the start of the line in the buffer
+     * @param end the end of the line in the buffer, before the line feed
+     * @param bufferStart the file offset of the buffer's first byte
+     */
+    private void index(byte[] buffer, int start, int end, long bufferStart) {
+        if (end > start && buffer[end - 1] == '\r') {
+            end--;
+        }
+        Prescription prescription = Prescription.parse(new String(buffer, start, end - start, StandardCharsets.UTF_8));
+        if (prescription != null) {
+            byPatient.computeIfAbsent(PatientIndex.fold(prescription.getPatientName()), p -> new RecordList())
+                    .add(bufferStart + start, end - start);
+        }
+    }
+
+    /**
+     * Closes the writer, ignoring errors; the next prescription reopens it.
+     */
+    private void closeWriter() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                System.out.println("Error closing prescriptions file: " + e.getMessage());
+            }
+            writer = null;
+            fileOut = null;
+            unflushed = 0;
+        }
+    }
+
+    /**
+     * A page of prescriptions read from the file, in the order they were saved.
+     */
+    public static final class Page {
+        private final List<Prescription> prescriptions;
+        private final long nextOffset;
+
+        private Page(List<Prescription> prescriptions, long nextOffset) {
+            this.prescriptions = prescriptions;
+            this.nextOffset = nextOffset;
+        }
+
+        /**
+         * Gets the prescriptions on the page.
+         *
+         * @return the prescriptions
+         */
+        public List<Prescription> getPrescriptions() {
+            return prescriptions;
+        }
+
+        /**
+         * Gets the offset the next page starts at.
+         *
+         * @return the offset to pass to readPage, or -1 if this is the last page
+         */
+        public long getNextOffset() {
+            return nextOffset;
+        }
+    }
+
+    /**
+     * The offsets and lengths of one patient's records, in primitive arrays that grow as needed.
+     */
+    private static final class RecordList {
+        private long[] offsets = new long[2];
+        private int[] lengths = new int[2];
+        private int size;
+
+        private void add(long offset, int length) {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+                lengths = Arrays.copyOf(lengths, size * 2);
+            }
+            offsets[size] = offset;
+            lengths[size] = length;
+            size++;
+        }
+    }
+}
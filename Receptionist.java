@@ -1,6 +1,9 @@
 package VirtualDoctor;
 
 import java.io.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
@@ -13,16 +16,24 @@ import java.util.Scanner;
 public class Receptionist extends Staff {  // Extending Staff class
 
     private final Scanner scanner = new Scanner(System.in);
-    private final List<String> doctors = List.of("Dr. John Smith", "Dr. Sarah Lee", "Dr. Banini", "Dr. Babu");
-    private final List<String> timeSlots = List.of("9:00 AM", "11:00 AM", "1:00 PM", "3:00 PM", "5:00 PM");
+    private static final int BOOKABLE_DAYS = 5; // Working days offered when booking
+    private static final int VIEW_PAGE_SIZE = 20; // Appointments shown per page
+    private final AppointmentCalendar calendar; // Shared with the doctors, so follow-ups and bookings never clash
+    private final List<String> doctors;
+    private final List<String> timeSlots;
+    private final AppointmentSorter appointmentSorter = new AppointmentSorter();
 
     /**
-     * Constructor to initialize the name of the receptionist.
+     * Constructor to initialize the name of the receptionist and the calendar appointments are booked in.
      *
-     * @param name the name of the receptionist
+     * @param name     the name of the receptionist
+     * @param calendar the appointment calendar
      */
-    public Receptionist(String name) {
+    public Receptionist(String name, AppointmentCalendar calendar) {
         super(name);  // Call to the Staff constructor to initialize the name
+        this.calendar = calendar;
+        this.doctors = calendar.getDoctors();
+        this.timeSlots = calendar.getTimeSlots();
     }
 
     /**
@@ -43,8 +54,8 @@ public class Receptionist extends Staff {  // Extending Staff class
     }
 
     /**
-     * Books an appointment for a patient with an available doctor and time slot.
-     * It validates the selected doctor and time slot and checks availability.
+     * Books an appointment for a patient with an available doctor, date and time slot.
+     * It validates the selected doctor, date and time slot and checks availability.
      */
     public void bookPatientAppointment() {
         System.out.println("Enter patient name:");
@@ -56,6 +67,21 @@ public class Receptionist extends Staff {  // Extending Staff class
         if (!isValidChoice(doctorChoice, doctors)) return;
 
         String selectedDoctor = doctors.get(doctorChoice);
+        LocalDateTime firstFree = calendar.firstFreeSlot(selectedDoctor, LocalDateTime.now());
+        System.out.println("First available: " + firstFree.toLocalDate() + ", "
+                + Appointment.TIME_FORMAT.format(firstFree.toLocalTime()));
+
+        System.out.println("Choose an appointment date:");
+        List<LocalDate> days = calendar.upcomingWorkingDays(BOOKABLE_DAYS);
+        List<String> dayLabels = new ArrayList<>();
+        for (LocalDate day : days) {
+            dayLabels.add(day.getDayOfWeek() + " " + day);
+        }
+        displayOptions(dayLabels);
+        int dayChoice = scanner.nextInt() - 1;
+        if (!isValidChoice(dayChoice, dayLabels)) return;
+
+        LocalDate selectedDate = days.get(dayChoice);
 
         System.out.println("Choose an appointment time:");
         displayOptions(timeSlots);
@@ -63,16 +89,61 @@ public class Receptionist extends Staff {  // Extending Staff class
         if (!isValidChoice(timeChoice, timeSlots)) return;
 
         String selectedTime = timeSlots.get(timeChoice);
-        String appointment = "Patient: " + patientName + ", Doctor: " + selectedDoctor + ", Time: " + selectedTime;
 
-        if (isSlotAvailable(selectedDoctor, selectedTime)) {
-            saveAppointment(appointment);
+        if (bookAppointment(patientName, selectedDoctor, selectedDate, selectedTime)) {
             System.out.println("Appointment booked successfully.");
-        } else {
+        } else if (calendar.hasPassed(LocalDateTime.of(selectedDate, LocalTime.parse(selectedTime, Appointment.TIME_FORMAT)))) {
+            System.out.println("This time has already passed. Please choose a later time.");
+        } else if (!isSlotAvailable(selectedDoctor, selectedDate, selectedTime)) {
             System.out.println("This slot is already booked. Please choose another time.");
         }
     }
 
+    /**
+     * Books the earliest free slot of any doctor for a patient without a preferred doctor.
+     */
+    public void bookEarliestAvailableAppointment() {
+        System.out.println("Enter patient name:");
+        String patientName = scanner.next();
+
+        Appointment appointment = calendar.bookEarliestAvailable(patientName, LocalDateTime.now());
+        if (appointment != null) {
+            System.out.println("Appointment booked successfully with " + appointment.getDoctor() + " on "
+                    + appointment.getDate() + ", " + Appointment.TIME_FORMAT.format(appointment.getTime()) + ".");
+        } else {
+            System.out.println("No appointment could be booked. Please try again.");
+        }
+    }
+
+    /**
+     * Books an appointment without prompting. The calendar reserves the slot atomically and logs it,
+     * so this is safe to call from several terminals at once and never double-books a slot.
+     *
+     * @param patientName the patient the appointment is for
+     * @param doctor      the doctor for the appointment
+     * @param date        the date of the appointment
+     * @param timeSlot    the time slot for the appointment, e.g. "9:00 AM"
+     * @return true if the appointment was booked, false if the slot is taken or could not be saved
+     */
+    public boolean bookAppointment(String patientName, String doctor, LocalDate date, String timeSlot) {
+        LocalTime time = LocalTime.parse(timeSlot, Appointment.TIME_FORMAT);
+        return calendar.book(new Appointment(patientName, doctor, date, time));
+    }
+
+    /**
+     * Cancels a booked appointment without prompting, freeing the slot for other patients.
+     *
+     * @param patientName the patient the appointment is for
+     * @param doctor      the doctor for the appointment
+     * @param date        the date of the appointment
+     * @param timeSlot    the time slot of the appointment, e.g. "9:00 AM"
+     * @return true if the appointment was cancelled, false if the slot was not booked or could not be saved
+     */
+    public boolean cancelAppointment(String patientName, String doctor, LocalDate date, String timeSlot) {
+        LocalTime time = LocalTime.parse(timeSlot, Appointment.TIME_FORMAT);
+        return calendar.cancel(new Appointment(patientName, doctor, date, time));
+    }
+
     /**
      * Displays a list of options to the user.
      *
@@ -100,71 +171,99 @@ public class Receptionist extends Staff {  // Extending Staff class
     }
 
     /**
-     * Checks if the selected time slot is available for the selected doctor.
+     * Checks if the selected time slot is available for the selected doctor on the selected date.
+     * This is answered from the calendar in memory, without reading the appointments file.
      *
      * @param doctor    the doctor selected for the appointment
+     * @param date      the date selected for the appointment
      * @param timeSlot  the time slot selected for the appointment
      * @return true if the slot is available, false if it is already booked
      */
-    private boolean isSlotAvailable(String doctor, String timeSlot) {
-        try (BufferedReader reader = new BufferedReader(new FileReader("appointments.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.contains("Doctor: " + doctor) && line.contains("Time: " + timeSlot)) {
-                    return false; // Slot already taken
-                }
-            }
-        } catch (IOException e) {
-            System.out.println("Error checking appointment availability: " + e.getMessage());
-        }
-        return true;
+    private boolean isSlotAvailable(String doctor, LocalDate date, String timeSlot) {
+        return calendar.isAvailable(doctor, date, LocalTime.parse(timeSlot, Appointment.TIME_FORMAT));
     }
 
     /**
-     * Saves the appointment details to a file.
-     *
-     * @param appointment the appointment details to be saved
+     * Displays upcoming appointments, either all of them or filtered by doctor, by patient or to today.
+     * The appointments are read from the calendar's indexes a page at a time, so each page costs the same
+     * however long the appointment history is.
      */
-    private void saveAppointment(String appointment) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter("appointments.txt", true))) {
-            writer.write(appointment);
-            writer.newLine();
-        } catch (IOException e) {
-            System.out.println("Error saving appointment: " + e.getMessage());
+    public void viewAppointments() {
+        System.out.println("View appointments:");
+        List<String> filters = List.of("All upcoming", "By doctor", "By patient", "Today");
+        displayOptions(filters);
+        int filterChoice = scanner.nextInt() - 1;
+        if (!isValidChoice(filterChoice, filters)) return;
+
+        LocalDateTime from = LocalDate.now().atStartOfDay();
+        LocalDateTime to = filterChoice == 3 ? from.plusDays(1) : LocalDateTime.MAX;
+        String doctor = null;
+        String patientName = null;
+        if (filterChoice == 1) {
+            System.out.println("Choose a doctor:");
+            displayOptions(doctors);
+            int doctorChoice = scanner.nextInt() - 1;
+            if (!isValidChoice(doctorChoice, doctors)) return;
+            doctor = doctors.get(doctorChoice);
+        } else if (filterChoice == 2) {
+            System.out.println("Enter patient name:");
+            patientName = scanner.next();
+        }
+
+        System.out.println("Appointments:");
+        Appointment cursor = null;
+        while (true) {
+            List<Appointment> page = doctor != null
+                    ? calendar.findAppointmentsByDoctor(doctor, from, to, cursor, VIEW_PAGE_SIZE)
+                    : patientName != null
+                    ? calendar.findAppointmentsByPatient(patientName, from, to, cursor, VIEW_PAGE_SIZE)
+                    : calendar.findAppointments(from, to, cursor, VIEW_PAGE_SIZE);
+            if (page.isEmpty()) {
+                System.out.println(cursor == null ? "No appointments found." : "No more appointments.");
+                return;
+            }
+            for (Appointment appointment : page) {
+                System.out.println(appointment.format());
+            }
+            if (page.size() < VIEW_PAGE_SIZE) {
+                return;
+            }
+            cursor = page.get(page.size() - 1);
+            System.out.println("1. Next page");
+            System.out.println("2. Back");
+            if (scanner.nextInt() != 1) {
+                return;
+            }
         }
     }
 
     /**
-     * Displays all the appointments stored in the appointments file.
+     * Asks how the appointments should be sorted and displays them in that order.
      */
-    public void viewAppointments() {
-        System.out.println("All Appointments:");
-        try (BufferedReader reader = new BufferedReader(new FileReader("appointments.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                System.out.println(line);
-            }
-        } catch (IOException e) {
-            System.out.println("Error reading appointments: " + e.getMessage());
+    public void sortAppointments() {
+        System.out.println("Sort appointments by:");
+        List<String> orders = new ArrayList<>();
+        for (AppointmentSorter.Order order : AppointmentSorter.Order.values()) {
+            orders.add(order.name().charAt(0) + order.name().substring(1).toLowerCase());
         }
+        displayOptions(orders);
+        int orderChoice = scanner.nextInt() - 1;
+        if (!isValidChoice(orderChoice, orders)) return;
+
+        sortAppointments(AppointmentSorter.Order.values()[orderChoice]);
     }
 
     /**
-     * Sorts the appointments alphabetically by the doctor's name.
-     * This method reads the appointments file, sorts the entries, and displays the sorted appointments.
+     * Displays the booked appointments sorted by doctor, time or patient.
+     * The appointments file is sorted with an external merge sort and each appointment is printed as soon as
+     * it comes out of the merge, so the whole history is never held in memory.
+     *
+     * @param order the sort order
      */
-    public void sortAppointments() {
-        List<String> appointments = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader("appointments.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                appointments.add(line);
-            }
-            appointments.sort(String::compareToIgnoreCase);
-            System.out.println("Sorted Appointments:");
-            for (String appointment : appointments) {
-                System.out.println(appointment);
-            }
+    public void sortAppointments(AppointmentSorter.Order order) {
+        System.out.println("Sorted Appointments:");
+        try {
+            appointmentSorter.sort(order, appointment -> System.out.println(appointment.format()));
         } catch (IOException e) {
             System.out.println("Error sorting appointments: " + e.getMessage());
         }
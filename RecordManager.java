@@ -1,104 +1,459 @@
 package VirtualDoctor;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * This class manages patient records, including adding, retrieving, displaying, and saving/loading records from a file.
  * It utilizes encapsulation to maintain privacy of patient data and supports file management for persistence.
+ * One RecordManager can be shared by several reception terminals: lookups and listings go through the
+ * concurrent name index without locking, and only the journal write of a registration is serialized.
  */
 public class RecordManager {
     // Using encapsulation for patient records and file path
-    private List<Patient> patientRecords = new ArrayList<>();
+    private final List<Patient> patientRecords = new ArrayList<>(); // Registration order, guarded by writeLock
+    private final Object writeLock = new Object(); // Serializes journal appends and compaction
+    private final PatientIndex patientIndex = new PatientIndex(); // Name index kept in sync with patientRecords
     private static final String filePath = "patient_records.txt"; // static final to indicate a constant
+    private static final String snapshotPath = "patient_records.bin"; // Binary snapshot, preferred over the text file
+    private static final int DISPLAY_PAGE_SIZE = 100; // Records fetched from the index at a time when displaying
+    private static final int MAX_AGE = 150; // Upper bound used to validate imported ages
+    private static final int IMPORT_BATCH_SIZE = 1000; // Rows persisted per journal write during a bulk import
+    private static final int COMPACTION_THRESHOLD = 1000; // Minimum journal entries before they are folded into the snapshot
+    private static final int COMPACTION_RATIO = 4; // ... and at least a quarter of the registry, so rewrites stay amortized O(1)
+    private final PatientJournal journal = new PatientJournal(); // New registrations are appended here
+    private final MedicalHistoryStore historyStore = new MedicalHistoryStore("medical_history.dat"); // Read lazily per patient
+    private final PatientColumns columns; // Column store for demographics in memory-compact mode, otherwise null
 
     /**
      * Constructor to initialize RecordManager and load patient records from the file.
      */
     public RecordManager() {
+        this(false);
+    }
+
+    /**
+     * Constructor to initialize RecordManager and load patient records from the file.
+     * The application refuses to start if the patient snapshot exists but is corrupt.
+     * In memory-compact mode, demographics are kept column-wise in a PatientColumns store with
+     * nationalities and address parts dictionary-encoded, and the registry holds lightweight views
+     * instead of full Patient objects.
+     *
+     * @param compact true to keep demographics in memory-compact columnar form
+     */
+    public RecordManager(boolean compact) {
+        columns = compact ? new PatientColumns() : null;
         loadPatientRecords();
     }
 
     /**
-     * Adds a new patient record and saves the updated records to the file.
+     * Adds a new patient record and appends it to the journal.
+     * The journal is compacted into the snapshot once it holds COMPACTION_THRESHOLD entries and at least
+     * 1/COMPACTION_RATIO of the registry, so the snapshot rewrite is spread over a number of registrations
+     * that grows with the registry. If the journal cannot be written, the patient is not added at all, so the
+     * registry never holds a patient that would be gone after a restart.
      *
      * @param patient the patient record to be added
+     * @return true if the patient was added, false if the record could not be saved
      */
-    public void addPatientRecord(Patient patient) {
-        patientRecords.add(patient);
-        patient.incrementPatientCount(); // Using static method from Patient class
-        savePatientRecords();
+    public boolean addPatientRecord(Patient patient) {
+        Patient record;
+        synchronized (writeLock) {
+            try {
+                journal.append(patientRecords.size() + 1, patient);
+            } catch (IOException e) {
+                System.out.println("Error saving patient record: " + e.getMessage());
+                return false;
+            }
+            record = toStoredRecord(patient);
+            patientRecords.add(record);
+            if (needsCompaction()) {
+                compactJournal();
+            }
+        }
+        indexRecord(record);
+        if (record != patient) {
+            patient.attachHistoryStore(historyStore); // The caller keeps using its own object
+        }
+        Patient.incrementPatientCount(); // Using static method from Patient class
         System.out.println("Record added for " + patient.getName());
+        return true;
+    }
+
+    /**
+     * Checks whether the journal has grown enough to be folded into the snapshot. Callers must hold writeLock.
+     *
+     * @return true if the journal should be compacted
+     */
+    private boolean needsCompaction() {
+        int entries = journal.getEntryCount();
+        return entries >= COMPACTION_THRESHOLD && entries >= patientRecords.size() / COMPACTION_RATIO;
     }
 
     /**
-     * Retrieves a patient record by name.
+     * Folds the journal into the snapshot and empties it.
+     * The journal is only reset after the new snapshot is in place. Callers must hold writeLock.
+     *
+     * @return true if the snapshot was saved, false otherwise
+     */
+    private boolean compactJournal() {
+        if (!savePatientRecords()) {
+            return false;
+        }
+        try {
+            journal.reset();
+        } catch (IOException e) {
+            // The snapshot already holds every entry; replay skips them by sequence number
+            System.out.println("Error resetting patient journal: " + e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * Retrieves a patient record by name, ignoring case.
+     * The lookup goes through the name index, so it does not scan the records.
      *
      * @param patientName the name of the patient whose record is to be retrieved
      * @return the Patient object if found, or null if no record is found
      */
     public Patient getPatientRecord(String patientName) {
-        for (Patient patient : patientRecords) {
-            if (patient.getName().equalsIgnoreCase(patientName)) {
-                return patient;
-            }
+        Patient patient = patientIndex.find(patientName);
+        if (patient == null) {
+            System.out.println("No record found for " + patientName);
         }
-        System.out.println("No record found for " + patientName);
-        return null;
+        return patient;
+    }
+
+    /**
+     * Retrieves the patient records whose names start with the given prefix, ignoring case.
+     * This lets the front desk type a partial name without scanning every record.
+     *
+     * @param prefix the start of the patient name
+     * @param limit the maximum number of records to return
+     * @return the matching patient records in name order
+     */
+    public List<Patient> findPatientsByPrefix(String prefix, int limit) {
+        return patientIndex.findByPrefix(prefix, limit);
     }
 
     /**
      * Displays all patient records in sorted order by patient name.
+     * The name index is already kept in order, so nothing is sorted here.
      */
     public void displayAllRecords() {
         System.out.println("All Patient Records:");
-        if (patientRecords.isEmpty()) {
+        if (patientIndex.isEmpty()) {
             System.out.println("No records found.");
-        } else {
-            Collections.sort(patientRecords, (p1, p2) -> p1.getName().compareToIgnoreCase(p2.getName())); // Sorting patients by name
-            for (Patient patient : patientRecords) {
-                patient.displayPatientCard();
-                System.out.println("Medical History:");
-                patient.displayMedicalHistory();
-                System.out.println();
-            }
+            return;
         }
+        String cursor = null;
+        List<Patient> page;
+        while (!(page = patientIndex.page(cursor, DISPLAY_PAGE_SIZE)).isEmpty()) {
+            displayRecords(page);
+            cursor = page.get(page.size() - 1).getName();
+        }
+    }
+
+    /**
+     * Retrieves one page of patient records in name order.
+     *
+     * @param startAfterName the name to continue after, or null to start from the first record
+     * @param pageSize the number of records to return
+     * @return the patient records on the page
+     */
+    public List<Patient> listPatientRecords(String startAfterName, int pageSize) {
+        return patientIndex.page(startAfterName, pageSize);
     }
 
     /**
-     * Saves all patient records to the file.
-     * This method writes each patient's details to a file for persistence.
+     * Displays one page of patient records in name order.
+     *
+     * @param startAfterName the name to continue after, or null to start from the first record
+     * @param pageSize the number of records to display
+     * @return the name to pass in for the next page, or null if this was the last page
      */
-    private void savePatientRecords() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
-            for (Patient patient : patientRecords) {
+    public String displayRecordsPage(String startAfterName, int pageSize) {
+        List<Patient> page = patientIndex.page(startAfterName, pageSize);
+        if (page.isEmpty()) {
+            System.out.println("No more records.");
+            return null;
+        }
+        displayRecords(page);
+        return page.get(page.size() - 1).getName();
+    }
+
+    /**
+     * Displays the card and medical history of each patient.
+     *
+     * @param patients the patients to display
+     */
+    private void displayRecords(List<Patient> patients) {
+        for (Patient patient : patients) {
+            patient.displayPatientCard();
+            System.out.println("Medical History:");
+            patient.displayMedicalHistory();
+            System.out.println();
+        }
+    }
+
+    /**
+     * Saves all patient records to the binary snapshot file.
+     * The snapshot is written to a temporary file first and then moved over the old one,
+     * so a crash part-way through never leaves a truncated registry behind.
+     *
+     * @return true if the records were saved, false otherwise
+     */
+    private boolean savePatientRecords() {
+        try {
+            PatientSnapshot.write(Paths.get(snapshotPath), patientRecords);
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error saving patient records: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Exports all patient records as name,age,nationality,address text lines for use by other tools.
+     *
+     * @param path the text file to write
+     */
+    public void exportPatientRecords(String path) {
+        List<Patient> records;
+        synchronized (writeLock) {
+            records = new ArrayList<>(patientRecords);
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(path))) { // UTF-8, as read by PatientRecordLoader
+            for (Patient patient : records) {
                 writer.write(patient.getName() + "," + patient.getAge() + "," + patient.getNationality() + ","
                         + patient.getAddress());
                 writer.newLine();
             }
+            System.out.println("Exported " + records.size() + " patient records to " + path);
         } catch (IOException e) {
-            System.out.println("Error saving patient records: " + e.getMessage());
+            System.out.println("Error exporting patient records: " + e.getMessage());
         }
     }
 
     /**
-     * Loads patient records from the file into memory.
+     * Imports patient records from a name,age,nationality,address text file and saves a new snapshot.
+     * If the snapshot cannot be saved, nothing is imported.
+     *
+     * @param path the text file to read
+     * @return the number of records imported
+     */
+    public int importPatientRecords(String path) {
+        List<Patient> imported;
+        try {
+            imported = new PatientRecordLoader().load(Paths.get(path));
+        } catch (IOException e) {
+            System.out.println("Error importing patient records: " + e.getMessage());
+            return 0;
+        }
+        imported.replaceAll(this::toStoredRecord);
+        synchronized (writeLock) {
+            patientRecords.addAll(imported);
+            // Persist the imported records and everything journaled so far in one snapshot
+            if (!compactJournal()) {
+                patientRecords.subList(patientRecords.size() - imported.size(), patientRecords.size()).clear();
+                System.out.println("Error importing patient records: they could not be saved.");
+                return 0;
+            }
+        }
+        for (Patient patient : imported) {
+            indexRecord(patient);
+            Patient.incrementPatientCount();
+        }
+        System.out.println("Imported " + imported.size() + " patient records from " + path);
+        return imported.size();
+    }
+
+    /**
+     * Imports a stream of name,age,nationality,address rows in batches.
+     * Each row is validated and rejected rows are reported rather than stopping the import. Valid rows
+     * are persisted IMPORT_BATCH_SIZE at a time with a single journal write and a single sync to disk,
+     * and nothing is printed per patient.
+     *
+     * @param rows the patient rows, e.g. the lines of a partner clinic's export
+     * @return the number of imported and rejected rows and the import throughput
+     */
+    public BulkImportResult importPatients(Stream<String> rows) {
+        BulkImportResult result = new BulkImportResult();
+        long start = System.nanoTime();
+        List<Patient> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        long rowNumber = 0;
+        Iterator<String> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            String row = iterator.next();
+            rowNumber++;
+            Patient patient = parseImportRow(row, rowNumber, result);
+            if (patient != null) {
+                batch.add(patient);
+                if (batch.size() == IMPORT_BATCH_SIZE) {
+                    commitBatch(batch, rowNumber, result);
+                    batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            commitBatch(batch, rowNumber, result);
+        }
+        synchronized (writeLock) {
+            if (needsCompaction()) {
+                compactJournal(); // Once for the whole import rather than once per batch
+            }
+        }
+        result.setElapsedNanos(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Persists a batch of imported patients with one journal write, then indexes them.
+     *
+     * @param batch the validated patients
+     * @param lastRowNumber the number of the last input row in the batch
+     * @param result the import report to update
+     */
+    private void commitBatch(List<Patient> batch, long lastRowNumber, BulkImportResult result) {
+        batch.replaceAll(this::toStoredRecord);
+        synchronized (writeLock) {
+            try {
+                journal.appendBatch(patientRecords.size() + 1, batch);
+            } catch (IOException e) {
+                result.recordFailedBatch(lastRowNumber, batch.size(), "could not be saved: " + e.getMessage());
+                return;
+            }
+            patientRecords.addAll(batch);
+        }
+        for (Patient patient : batch) {
+            indexRecord(patient);
+            Patient.incrementPatientCount();
+        }
+        result.recordBatch(batch.size());
+    }
+
+    /**
+     * Parses and validates one import row.
+     * The address is the rest of the row after the third comma, so it may contain commas.
+     *
+     * @param row the row to parse
+     * @param rowNumber the 1-based number of the row
+     * @param result the import report, which receives the reason if the row is rejected
+     * @return the patient, or null if the row is invalid
+     */
+    private Patient parseImportRow(String row, long rowNumber, BulkImportResult result) {
+        int first = row.indexOf(',');
+        int second = first < 0 ? -1 : row.indexOf(',', first + 1);
+        int third = second < 0 ? -1 : row.indexOf(',', second + 1);
+        if (third < 0) {
+            result.recordRejection(rowNumber, "expected name,age,nationality,address");
+            return null;
+        }
+        String name = row.substring(0, first).trim();
+        String ageText = row.substring(first + 1, second).trim();
+        String nationality = row.substring(second + 1, third).trim();
+        String address = row.substring(third + 1).trim();
+        if (name.isEmpty() || nationality.isEmpty() || address.isEmpty()) {
+            result.recordRejection(rowNumber, "name, nationality and address are required");
+            return null;
+        }
+        int age;
+        try {
+            age = Integer.parseInt(ageText);
+        } catch (NumberFormatException e) {
+            result.recordRejection(rowNumber, "age is not a number: " + ageText);
+            return null;
+        }
+        if (age < 0 || age > MAX_AGE) {
+            result.recordRejection(rowNumber, "age out of range: " + age);
+            return null;
+        }
+        return new Patient(name, age, nationality, address);
+    }
+
+    /**
+     * Loads patient records from the file into memory, then replays the journal on top of them.
      * This method reads the records from a file and initializes the patient records list.
      */
     private void loadPatientRecords() {
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] details = line.split(",");
-                if (details.length == 4) {
-                    Patient patient = new Patient(details[0], Integer.parseInt(details[1]), details[2], details[3]);
-                    patientRecords.add(patient);
-                }
+        loadSnapshot();
+        journal.replay(patientRecords.size(), patient -> {
+            Patient record = toStoredRecord(patient);
+            patientRecords.add(record);
+            indexRecord(record);
+        });
+    }
+
+    /**
+     * Loads the compacted patient records, reporting the time taken.
+     * The binary snapshot is used when present. The text records file is only read before the first
+     * compaction, when there is no snapshot yet: once a snapshot exists, the journal's sequence numbers
+     * are counted against it, so replaying the journal on top of the older text file would silently
+     * drop patients.
+     *
+     * @throws IllegalStateException if the snapshot exists but cannot be read
+     */
+    private void loadSnapshot() {
+        long start = System.nanoTime();
+        List<Patient> loaded = null;
+        Path snapshot = Paths.get(snapshotPath);
+        Path text = Paths.get(filePath);
+        if (Files.exists(snapshot)) {
+            try {
+                loaded = PatientSnapshot.read(snapshot);
+            } catch (IOException e) {
+                // Starting without the snapshot would lose patients and the next compaction would overwrite it
+                throw new IllegalStateException("Patient snapshot " + snapshotPath + " cannot be read ("
+                        + e.getMessage() + "). Restore it from a backup before starting.", e);
             }
-        } catch (IOException e) {
-            System.out.println("Error loading patient records: " + e.getMessage());
+        } else if (Files.exists(text)) {
+            try {
+                loaded = new PatientRecordLoader().load(text);
+            } catch (IOException e) {
+                throw new IllegalStateException("Patient records file " + filePath + " cannot be read ("
+                        + e.getMessage() + ").", e);
+            }
+        }
+        if (loaded == null) {
+            return; // Nothing has been compacted yet
+        }
+        loaded.replaceAll(this::toStoredRecord);
+        patientRecords.addAll(loaded);
+        for (Patient patient : loaded) {
+            indexRecord(patient);
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Loaded " + patientRecords.size() + " patient records in " + elapsedMillis + " ms.");
+    }
+
+    /**
+     * Converts a patient into the form the registry keeps in memory.
+     *
+     * @param patient the patient to store
+     * @return a view backed by the column store in memory-compact mode, otherwise the patient itself
+     */
+    private Patient toStoredRecord(Patient patient) {
+        if (columns == null || !PatientColumns.canStoreAge(patient.getAge())) {
+            // Ages the column cannot hold are kept in the patient object rather than truncated
+            return patient;
         }
+        return columns.add(patient.getName(), patient.getAge(), patient.getNationality(), patient.getAddress());
+    }
+
+    /**
+     * Adds a patient to the name index so that lookups can find it.
+     * The patient's medical history is backed by the history store from then on.
+     *
+     * @param patient the patient record to be indexed
+     */
+    private void indexRecord(Patient patient) {
+        patientIndex.add(patient);
+        patient.attachHistoryStore(historyStore);
     }
 }
@@ -0,0 +1,68 @@
+package VirtualDoctor;
+
+import java.time.LocalDateTime;
+
+/**
+ * This class represents a reminder of an upcoming appointment or follow-up, as delivered to a ReminderSink.
+ */
+public class Reminder {
+    private final String patientName;
+    private final String doctor;
+    private final LocalDateTime appointmentStart;
+
+    /**
+     * Constructor to initialize a reminder.
+     *
+     * @param patientName the patient to remind
+     * @param doctor the doctor the patient is seeing, or null if not known (follow-ups)
+     * @param appointmentStart the start of the appointment
+     */
+    public Reminder(String patientName, String doctor, LocalDateTime appointmentStart) {
+        this.patientName = patientName;
+        this.doctor = doctor;
+        this.appointmentStart = appointmentStart;
+    }
+
+    /**
+     * Gets the patient to remind.
+     *
+     * @return the patient's name
+     */
+    public String getPatientName() {
+        return patientName;
+    }
+
+    /**
+     * Gets the doctor the patient is seeing.
+     *
+     * @return the doctor, or null if not known
+     */
+    public String getDoctor() {
+        return doctor;
+    }
+
+    /**
+     * Gets the start of the appointment.
+     *
+     * @return the appointment's start
+     */
+    public LocalDateTime getAppointmentStart() {
+        return appointmentStart;
+    }
+
+    /**
+     * Gets the reminder text, e.g. "Ann has an appointment with Dr. Babu on MONDAY 2024-12-02, 9:00 AM".
+     *
+     * @return the reminder text
+     */
+    public String getMessage() {
+        return patientName + " has an appointment" + (doctor == null ? "" : " with " + doctor) + " on "
+                + appointmentStart.getDayOfWeek() + " " + appointmentStart.toLocalDate() + ", "
+                + Appointment.TIME_FORMAT.format(appointmentStart.toLocalTime());
+    }
+
+    @Override
+    public String toString() {
+        return getMessage();
+    }
+}
@@ -0,0 +1,501 @@
+package VirtualDoctor;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * This class sends reminders of upcoming appointments and follow-ups to a ReminderSink a fixed time ahead.
+ * Pending reminders are kept in a hierarchical timing wheel: four levels of 64 slots, where a level-0 slot
+ * covers one tick and each higher level's slot covers 64 slots of the level below. A reminder is filed at the
+ * highest level where its due tick differs from the current one, and is moved down a level when the wheel
+ * reaches its slot, until it expires from level 0. Each slot is a doubly linked list, so adding and cancelling
+ * a reminder are O(1) however many are pending, and each tick only touches the reminders that are due or being
+ * moved down. Reminders beyond the wheel's horizon wait in an overflow list until it comes round.
+ * <p>
+ * Reminders are keyed by patient and appointment start, so an appointment that appears in both the appointments
+ * file and the follow-up file is reminded once. At startup the pending reminders are rebuilt from both files.
+ * <p>
+ * After each batch of deliveries the time up to which reminders have been delivered is saved to the delivered
+ * file. When the reminders are rebuilt, those that fell due before that time are skipped, so a restart does not
+ * remind every appointment within the lead time again, while reminders that fell due while the application was
+ * down still go out. Without a delivered file, every reminder whose time has passed is skipped. Appointments
+ * booked while running are always reminded, even if they are closer than the lead time.
+ */
+public class ReminderScheduler {
+    private static final String APPOINTMENTS_FILE = "appointments.txt";
+    private static final String FOLLOW_UP_FILE = "followup_appointments.txt";
+    private static final String DELIVERED_FILE = "reminders_delivered.txt";
+    private static final String CANCELLED_PREFIX = "Cancelled - ";
+    private static final String FOLLOW_UP_LABEL = " - Follow-up on: ";
+    private static final long DEFAULT_LEAD_MILLIS = TimeUnit.HOURS.toMillis(24); // Reminders go out a day ahead
+    private static final long DEFAULT_TICK_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private final ReminderSink sink;
+    private final String deliveredFile; // Null if deliveries are not recorded
+    private final long leadMillis;
+    private final long tickMillis;
+    private final LongSupplier clock;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final Entry[][] wheel = new Entry[LEVELS][SLOTS]; // All fields below are guarded by this
+    private final Entry overflow = new Entry(null, null, 0);  // Head of the list of reminders beyond the horizon
+    private final Map<String, Entry> byKey = new HashMap<>();
+    private long currentTick;
+    private long deliveredTick; // Reminders due up to this tick were delivered before; guarded by this
+
+    /**
+     * Constructor to create a scheduler that reminds patients a day before their appointments.
+     *
+     * @param sink where reminders are delivered
+     */
+    public ReminderScheduler(ReminderSink sink) {
+        this(sink, DELIVERED_FILE, DEFAULT_LEAD_MILLIS, DEFAULT_TICK_MILLIS, System::currentTimeMillis);
+    }
+
+    /**
+     * Constructor to create a scheduler with the given lead time, tick length and clock.
+     *
+     * @param sink where reminders are delivered
+     * @param deliveredFile the file recording how far reminders have been delivered, or null for none
+     * @param leadMillis how long before an appointment its reminder is delivered
+     * @param tickMillis the length of one tick, the precision reminders are delivered with
+     * @param clock the current time in milliseconds
+     */
+    ReminderScheduler(ReminderSink sink, String deliveredFile, long leadMillis, long tickMillis, LongSupplier clock) {
+        this.sink = sink;
+        this.deliveredFile = deliveredFile;
+        this.leadMillis = leadMillis;
+        this.tickMillis = tickMillis;
+        this.clock = clock;
+        this.currentTick = clock.getAsLong() / tickMillis;
+        this.deliveredTick = currentTick;
+        overflow.next = overflow;
+        overflow.prev = overflow;
+    }
+
+    /**
+     * Starts a daemon thread that delivers reminders as they fall due, once per tick.
+     */
+    public void start() {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "appointment-reminders");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Schedules the reminder of a booked appointment.
+     *
+     * @param appointment the appointment
+     * @return true if a reminder was scheduled, false if the appointment has started or already has one
+     */
+    public boolean schedule(Appointment appointment) {
+        return schedule(new Reminder(appointment.getPatientName(), appointment.getDoctor(), appointment.getStart()));
+    }
+
+    /**
+     * Schedules a reminder. If the appointment is closer than the lead time, the reminder goes out at the next tick.
+     * A reminder for the same patient and start that was scheduled without a doctor is replaced by one with a doctor.
+     *
+     * @param reminder the reminder
+     * @return true if the reminder was scheduled, false if the appointment has started or already has a reminder
+     */
+    public boolean schedule(Reminder reminder) {
+        return schedule(reminder, false);
+    }
+
+    /**
+     * Schedules a reminder, optionally skipping it if its time has passed.
+     *
+     * @param reminder the reminder
+     * @param restoring true when rebuilding reminders from the files; reminders due at or before the delivered
+     *                  time were already sent and are skipped
+     * @return true if the reminder was scheduled, false otherwise
+     */
+    private synchronized boolean schedule(Reminder reminder, boolean restoring) {
+        long start = toMillis(reminder.getAppointmentStart());
+        if (start <= clock.getAsLong() || restoring && Math.floorDiv(start - leadMillis, tickMillis) <= deliveredTick) {
+            return false;
+        }
+        String key = key(reminder.getPatientName(), reminder.getAppointmentStart());
+        Entry existing = byKey.get(key);
+        if (existing != null) {
+            if (existing.reminder.getDoctor() != null || reminder.getDoctor() == null) {
+                return false;
+            }
+            existing.reminder = reminder; // Same appointment, now with its doctor
+            return true;
+        }
+        Entry entry = new Entry(key, reminder, Math.max(currentTick + 1, (start - leadMillis) / tickMillis));
+        byKey.put(key, entry);
+        place(entry);
+        return true;
+    }
+
+    /**
+     * Cancels the reminder of an appointment.
+     *
+     * @param appointment the appointment
+     * @return true if a pending reminder was cancelled, false otherwise
+     */
+    public boolean cancel(Appointment appointment) {
+        return cancel(appointment.getPatientName(), appointment.getStart());
+    }
+
+    /**
+     * Cancels the reminder of a patient's appointment.
+     *
+     * @param patientName the patient
+     * @param appointmentStart the start of the appointment
+     * @return true if a pending reminder was cancelled, false otherwise
+     */
+    public synchronized boolean cancel(String patientName, LocalDateTime appointmentStart) {
+        Entry entry = byKey.remove(key(patientName, appointmentStart));
+        if (entry == null) {
+            return false;
+        }
+        entry.unlink();
+        return true;
+    }
+
+    /**
+     * Gets the number of pending reminders.
+     *
+     * @return the number of reminders not yet delivered
+     */
+    public synchronized int size() {
+        return byKey.size();
+    }
+
+    /**
+     * Rebuilds the pending reminders from the default follow-up and appointments files.
+     *
+     * @return the number of pending reminders
+     */
+    public int load() {
+        return load(APPOINTMENTS_FILE, FOLLOW_UP_FILE);
+    }
+
+    /**
+     * Rebuilds the pending reminders from the given follow-up and appointments files. Follow-ups are read
+     * first, so that cancellations in the appointments file also cancel them and their doctor is filled in
+     * from the matching booking. Appointments that have already started, and reminders delivered before the
+     * last shutdown, are skipped.
+     *
+     * @param appointmentsFile the appointments file
+     * @param followUpFile the follow-up appointments file
+     * @return the number of pending reminders
+     */
+    public int load(String appointmentsFile, String followUpFile) {
+        readDeliveredTick();
+        readLines(followUpFile, line -> {
+            Reminder reminder = parseFollowUp(line);
+            if (reminder != null) {
+                schedule(reminder, true);
+            }
+        });
+        readLines(appointmentsFile, line -> {
+            boolean cancelled = line.startsWith(CANCELLED_PREFIX);
+            Appointment appointment = Appointment.parse(cancelled ? line.substring(CANCELLED_PREFIX.length()) : line);
+            if (appointment == null) {
+                return; // Lines written before appointments had dates
+            }
+            if (cancelled) {
+                cancel(appointment);
+            } else {
+                schedule(new Reminder(appointment.getPatientName(), appointment.getDoctor(), appointment.getStart()), true);
+            }
+        });
+        return size();
+    }
+
+    /**
+     * Delivers every reminder that has fallen due.
+     */
+    public void advance() {
+        List<Reminder> due = new ArrayList<>();
+        long tick;
+        synchronized (this) {
+            long nowTick = clock.getAsLong() / tickMillis;
+            while (currentTick < nowTick) {
+                tick(due);
+            }
+            tick = currentTick;
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+        for (Reminder reminder : due) {
+            try {
+                sink.deliver(reminder);
+            } catch (RuntimeException e) {
+                System.out.println("Error delivering reminder: " + e.getMessage());
+            }
+        }
+        saveDeliveredTick(tick); // Only after delivering, so a crash in between repeats rather than loses reminders
+    }
+
+    /**
+     * Reads how far reminders had been delivered before the last shutdown. Without a delivered file, reminders
+     * count as delivered up to now.
+     */
+    private synchronized void readDeliveredTick() {
+        deliveredTick = currentTick;
+        if (deliveredFile == null || !Files.exists(Paths.get(deliveredFile))) {
+            return;
+        }
+        try {
+            long deliveredMillis = Long.parseLong(new String(Files.readAllBytes(Paths.get(deliveredFile)),
+                    StandardCharsets.UTF_8).trim());
+            deliveredTick = Math.min(currentTick, deliveredMillis / tickMillis);
+        } catch (IOException | NumberFormatException e) {
+            System.out.println("Error reading delivered reminders file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records that every reminder due up to the given tick has been delivered. The file is written to a
+     * temporary file and moved into place, so it always holds a complete time.
+     *
+     * @param tick the last tick whose reminders were delivered
+     */
+    private void saveDeliveredTick(long tick) {
+        if (deliveredFile == null) {
+            return;
+        }
+        Path file = Paths.get(deliveredFile);
+        Path tempFile = Paths.get(deliveredFile + ".tmp");
+        try {
+            Files.write(tempFile, Long.toString(tick * tickMillis).getBytes(StandardCharsets.UTF_8));
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Error saving delivered reminders file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Moves the wheel on by one tick: slots of higher levels whose turn has come are moved down, highest first,
+     * and then the reminders in the level-0 slot expire.
+     *
+     * @param due the list expired reminders are added to
+     */
+    private void tick(List<Reminder> due) {
+        currentTick++;
+        int level = 0;
+        while (level < LEVELS && (currentTick & ((1L << (SLOT_BITS * (level + 1))) - 1)) == 0) {
+            level++; // The lower digits of the tick are all zero up to this level
+        }
+        if (level == LEVELS) {
+            cascade(overflow); // The whole wheel came round; some overflow reminders may now fit
+            level--;
+        }
+        for (; level > 0; level--) {
+            cascade(wheel[level][(int) (currentTick >>> (SLOT_BITS * level)) & SLOT_MASK]);
+        }
+        Entry head = wheel[0][(int) currentTick & SLOT_MASK];
+        while (head != null) {
+            Entry entry = head;
+            head = entry.next;
+            entry.unlink();
+            byKey.remove(entry.key);
+            due.add(entry.reminder);
+        }
+    }
+
+    /**
+     * Re-files every reminder of a slot, which moves them down to the level their due tick now calls for.
+     *
+     * @param first the first entry of the slot, or the overflow list's head
+     */
+    private void cascade(Entry first) {
+        if (first == overflow) {
+            Entry entry = overflow.next;
+            while (entry != overflow) {
+                Entry next = entry.next;
+                entry.unlink();
+                place(entry);
+                entry = next;
+            }
+            return;
+        }
+        Entry entry = first;
+        while (entry != null) {
+            Entry next = entry.next;
+            entry.unlink();
+            place(entry);
+            entry = next;
+        }
+    }
+
+    /**
+     * Files a reminder in the slot for its due tick: at the highest level where the due tick's digit differs
+     * from the current tick's, or in the overflow list if it is beyond the wheel's horizon.
+     *
+     * @param entry the reminder's entry, not in any list
+     */
+    private void place(Entry entry) {
+        long differing = entry.dueTick ^ currentTick;
+        if (differing >>> (SLOT_BITS * LEVELS) != 0) {
+            entry.linkAfter(overflow);
+            return;
+        }
+        int level = 0;
+        while (level < LEVELS - 1 && differing >>> (SLOT_BITS * (level + 1)) != 0) {
+            level++;
+        }
+        int slot = (int) (entry.dueTick >>> (SLOT_BITS * level)) & SLOT_MASK;
+        entry.linkFirst(wheel[level], slot);
+    }
+
+    /**
+     * Converts a local date and time to milliseconds since the epoch.
+     *
+     * @param time the local date and time
+     * @return the milliseconds since the epoch
+     */
+    private long toMillis(LocalDateTime time) {
+        return time.atZone(zone).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Builds the key of a reminder from its patient and appointment start.
+     *
+     * @param patientName the patient
+     * @param appointmentStart the start of the appointment
+     * @return the key
+     */
+    private static String key(String patientName, LocalDateTime appointmentStart) {
+        return PatientIndex.fold(patientName) + '|' + appointmentStart;
+    }
+
+    /**
+     * Parses a line of the follow-up file, e.g. "Patient: Ann - Follow-up on: MONDAY 2024-12-02, 9:00 AM".
+     *
+     * @param line the follow-up line
+     * @return the reminder, or null if the line has no date (lines written before follow-ups were dated)
+     */
+    static Reminder parseFollowUp(String line) {
+        int label = line.indexOf(FOLLOW_UP_LABEL);
+        int dateStart = line.indexOf(' ', label + FOLLOW_UP_LABEL.length()) + 1;
+        int dateEnd = line.indexOf(", ", dateStart);
+        if (!line.startsWith("Patient: ") || label < 0 || dateStart <= 0 || dateEnd < 0) {
+            return null;
+        }
+        try {
+            LocalDate date = LocalDate.parse(line.substring(dateStart, dateEnd));
+            LocalTime time = LocalTime.parse(line.substring(dateEnd + 2).trim(), Appointment.TIME_FORMAT);
+            return new Reminder(line.substring("Patient: ".length(), label), null, LocalDateTime.of(date, time));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Passes each line of a file to a handler. A missing file has no lines.
+     *
+     * @param fileName the file
+     * @param handler what to do with each line
+     */
+    private static void readLines(String fileName, java.util.function.Consumer<String> handler) {
+        File file = new File(fileName);
+        if (!file.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                handler.accept(line);
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading " + fileName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * A pending reminder, linked into a wheel slot or the overflow list.
+     */
+    private static final class Entry {
+        private final String key;
+        private Reminder reminder;
+        private final long dueTick;
+        private Entry prev;
+        private Entry next;
+        private Entry[] slots; // The level this entry is filed in, or null if it is in the overflow list
+        private int slot;
+
+        private Entry(String key, Reminder reminder, long dueTick) {
+            this.key = key;
+            this.reminder = reminder;
+            this.dueTick = dueTick;
+        }
+
+        /**
+         * Puts the entry at the front of a wheel slot.
+         *
+         * @param level the slots of the level
+         * @param index the slot
+         */
+        private void linkFirst(Entry[] level, int index) {
+            slots = level;
+            slot = index;
+            prev = null;
+            next = level[index];
+            if (next != null) {
+                next.prev = this;
+            }
+            level[index] = this;
+        }
+
+        /**
+         * Puts the entry into the overflow list, right after its head.
+         *
+         * @param head the overflow list's head
+         */
+        private void linkAfter(Entry head) {
+            slots = null;
+            prev = head;
+            next = head.next;
+            next.prev = this;
+            head.next = this;
+        }
+
+        /**
+         * Takes the entry out of whichever list it is in.
+         */
+        private void unlink() {
+            if (prev != null) {
+                prev.next = next;
+            } else if (slots != null) {
+                slots[slot] = next; // First in its slot
+            }
+            if (next != null) {
+                next.prev = prev;
+            }
+            prev = null;
+            next = null;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package VirtualDoctor;
+
+/**
+ * This interface receives appointment reminders from the ReminderScheduler when they fall due.
+ * Reminders are delivered one at a time from the scheduler's thread, so implementations should return quickly.
+ */
+public interface ReminderSink {
+    /**
+     * Delivers a reminder.
+     *
+     * @param reminder the reminder that is due
+     */
+    void deliver(Reminder reminder);
+}
@@ -0,0 +1,145 @@
+package VirtualDoctor;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class keeps an in-memory record of which appointment slots are taken for each doctor on each day.
+ * Each doctor has a sorted map from day to a bit mask with one bit per time slot of that day; days without
+ * bookings have no entry. A slot is reserved with a single compare-and-set on the day's mask, so two terminals
+ * booking the same slot at the same moment cannot both succeed, and no lock is taken.
+ */
+public class SlotOccupancyIndex {
+    private final Map<String, ConcurrentSkipListMap<LocalDate, AtomicLong>> bookedSlots = new HashMap<>(); // Keys fixed
+    private final int slotsPerDay;
+    private final long allSlots; // Mask with one bit set for each slot of a day
+
+    /**
+     * Constructor to create an empty index for the given doctors.
+     *
+     * @param doctors the doctors that can be booked
+     * @param slotsPerDay the number of time slots in a day
+     */
+    public SlotOccupancyIndex(List<String> doctors, int slotsPerDay) {
+        if (slotsPerDay < 1 || slotsPerDay > Long.SIZE) {
+            throw new IllegalArgumentException("Between 1 and " + Long.SIZE + " time slots per day are supported.");
+        }
+        for (String doctor : doctors) {
+            bookedSlots.put(doctor, new ConcurrentSkipListMap<>());
+        }
+        this.slotsPerDay = slotsPerDay;
+        this.allSlots = slotsPerDay == Long.SIZE ? -1L : (1L << slotsPerDay) - 1;
+    }
+
+    /**
+     * Checks whether a doctor's time slot on a day is already booked.
+     *
+     * @param doctor the doctor
+     * @param date the day
+     * @param slot the index of the time slot within the day
+     * @return true if the slot is booked, false otherwise
+     */
+    public boolean isBooked(String doctor, LocalDate date, int slot) {
+        return (bookedMask(doctor, date) & (1L << slot)) != 0;
+    }
+
+    /**
+     * Atomically reserves a doctor's time slot on a day if it is free.
+     *
+     * @param doctor the doctor
+     * @param date the day
+     * @param slot the index of the time slot within the day
+     * @return true if this call reserved the slot, false if it was already booked or the doctor is unknown
+     */
+    public boolean tryReserve(String doctor, LocalDate date, int slot) {
+        ConcurrentSkipListMap<LocalDate, AtomicLong> days = bookedSlots.get(doctor);
+        if (days == null || slot < 0 || slot >= slotsPerDay) {
+            return false;
+        }
+        AtomicLong day = days.computeIfAbsent(date, d -> new AtomicLong());
+        long bit = 1L << slot;
+        while (true) {
+            long mask = day.get();
+            if ((mask & bit) != 0) {
+                return false; // Someone else holds the slot
+            }
+            if (day.compareAndSet(mask, mask | bit)) {
+                return true;
+            }
+            // Another slot of the same day changed under us; re-read and try again
+        }
+    }
+
+    /**
+     * Releases a reserved slot, e.g. when the booking could not be saved or was cancelled.
+     *
+     * @param doctor the doctor
+     * @param date the day
+     * @param slot the index of the time slot within the day
+     */
+    public void release(String doctor, LocalDate date, int slot) {
+        ConcurrentSkipListMap<LocalDate, AtomicLong> days = bookedSlots.get(doctor);
+        AtomicLong day = days == null ? null : days.get(date);
+        if (day != null) {
+            long bit = 1L << slot;
+            day.getAndUpdate(mask -> mask & ~bit);
+        }
+    }
+
+    /**
+     * Finds the first free slot of a day, starting at the given slot.
+     *
+     * @param doctor the doctor
+     * @param date the day
+     * @param fromSlot the first slot to consider
+     * @return the index of the first free slot, or -1 if every slot from fromSlot on is booked
+     */
+    public int firstFreeSlot(String doctor, LocalDate date, int fromSlot) {
+        if (fromSlot >= slotsPerDay) {
+            return -1;
+        }
+        long free = ~bookedMask(doctor, date) & allSlots & (-1L << Math.max(fromSlot, 0));
+        return free == 0 ? -1 : Long.numberOfTrailingZeros(free);
+    }
+
+    /**
+     * Finds the first day, on or after the given one, on which a doctor has at least one free slot.
+     * Only days with bookings are in the doctor's sorted map, so this seeks through the map and steps over
+     * a run of fully booked days without looking at the days around them.
+     *
+     * @param doctor the doctor
+     * @param from the first day to consider
+     * @return the first day that is not fully booked, or null if the doctor is unknown
+     */
+    public LocalDate firstDayWithFreeSlot(String doctor, LocalDate from) {
+        ConcurrentSkipListMap<LocalDate, AtomicLong> days = bookedSlots.get(doctor);
+        if (days == null) {
+            return null;
+        }
+        LocalDate day = from;
+        for (Map.Entry<LocalDate, AtomicLong> booked : days.tailMap(from).entrySet()) {
+            if (booked.getKey().isAfter(day) || booked.getValue().get() != allSlots) {
+                return day; // Either nothing is booked on this day or some slot is still free
+            }
+            day = day.plusDays(1);
+        }
+        return day;
+    }
+
+    /**
+     * Gets the mask of booked slots of a doctor's day with a single map lookup.
+     *
+     * @param doctor the doctor
+     * @param date the day
+     * @return the booked-slot mask, 0 if nothing is booked
+     */
+    private long bookedMask(String doctor, LocalDate date) {
+        ConcurrentSkipListMap<LocalDate, AtomicLong> days = bookedSlots.get(doctor);
+        AtomicLong day = days == null ? null : days.get(date);
+        return day == null ? 0 : day.get();
+    }
+}
@@ -0,0 +1,178 @@
+package VirtualDoctor;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class holds the current SymptomKnowledgeBase and keeps it in step with the symptoms file.
+ * A background thread watches the file with a WatchService; when it changes, a new snapshot is built
+ * off to the side and swapped in with a single reference update. Diagnoses read whichever snapshot is
+ * current and never wait for a reload.
+ * <p>
+ * Entries added through addEntry are merged into a new snapshot directly. The catalog remembers the size and
+ * modification time of the file as it last read or wrote it, so the watch event caused by its own write does
+ * not trigger a second, redundant reload.
+ */
+public class SymptomCatalog {
+    private static final String SYMPTOMS_DISEASES_FILE = "symptoms_diseases.txt";
+
+    private final String symptomsFile;
+    private final AtomicReference<SymptomKnowledgeBase> current = new AtomicReference<>();
+    private final Object reloadLock = new Object(); // Keeps reloads in order so an older file never wins
+    private long knownLength = -1;   // The file's size and modification time as last read or written;
+    private long knownModified = -1; // both guarded by reloadLock
+
+    /**
+     * Constructor to load the catalog from the default symptoms file.
+     */
+    public SymptomCatalog() {
+        this(SYMPTOMS_DISEASES_FILE);
+    }
+
+    /**
+     * Constructor to load the catalog from the given symptoms file.
+     *
+     * @param symptomsFile the symptoms file
+     */
+    public SymptomCatalog(String symptomsFile) {
+        this.symptomsFile = symptomsFile;
+        reload();
+    }
+
+    /**
+     * Gets the current knowledge base snapshot.
+     *
+     * @return the current snapshot
+     */
+    public SymptomKnowledgeBase current() {
+        return current.get();
+    }
+
+    /**
+     * Rebuilds the knowledge base from the symptoms file and swaps it in.
+     */
+    public void reload() {
+        synchronized (reloadLock) {
+            rememberFileState(); // Before reading, so a write during the load is seen as a change
+            current.set(SymptomKnowledgeBase.load(symptomsFile));
+        }
+    }
+
+    /**
+     * Reloads the knowledge base unless the symptoms file is as this catalog last read or wrote it.
+     */
+    private void reloadIfChanged() {
+        synchronized (reloadLock) {
+            File file = new File(symptomsFile);
+            if (file.length() != knownLength || file.lastModified() != knownModified) {
+                reload();
+            }
+        }
+    }
+
+    /**
+     * Records the symptoms file's current size and modification time. Must be called while holding reloadLock.
+     */
+    private void rememberFileState() {
+        File file = new File(symptomsFile);
+        knownLength = file.length();
+        knownModified = file.lastModified();
+    }
+
+    /**
+     * Appends a symptom-disease-prescription entry to the symptoms file and makes it available at once,
+     * without waiting for the watcher to notice the change.
+     *
+     * @param symptoms the symptoms, separated by commas
+     * @param disease the disease
+     * @param prescription the prescription
+     * @return true if the entry was saved, false otherwise
+     */
+    public boolean addEntry(String symptoms, String disease, String prescription) {
+        String line = symptoms + " : " + disease + " : " + prescription;
+        DiseaseEntry entry = SymptomKnowledgeBase.parseLine(line); // Read back exactly as a reload would
+        synchronized (reloadLock) {
+            File file = new File(symptomsFile);
+            boolean unchanged = file.length() == knownLength && file.lastModified() == knownModified;
+            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(file, true), StandardCharsets.UTF_8))) {
+                writer.write(line);
+                writer.newLine();
+            } catch (IOException e) {
+                System.out.println("Error saving symptom-disease-prescription entry: " + e.getMessage());
+                return false;
+            }
+            if (!unchanged) {
+                reload(); // Someone else changed the file too, so the current snapshot is stale anyway
+            } else {
+                if (entry != null) {
+                    current.set(current.get().withEntry(entry));
+                }
+                rememberFileState();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Starts a daemon thread that reloads the knowledge base whenever the symptoms file is created or modified.
+     */
+    public void startWatching() {
+        Path file = Paths.get(symptomsFile).toAbsolutePath();
+        WatchService watcher;
+        try {
+            watcher = FileSystems.getDefault().newWatchService();
+            file.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            System.out.println("Error watching symptoms file: " + e.getMessage());
+            return;
+        }
+        Thread thread = new Thread(() -> watch(watcher, file.getFileName()), "symptom-catalog-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Waits for changes to the symptoms file and reloads after each batch of events that mentions it.
+     *
+     * @param watcher the watch service registered on the file's directory
+     * @param fileName the name of the symptoms file
+     */
+    private void watch(WatchService watcher, Path fileName) {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                try {
+                    boolean changed = false;
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (fileName.equals(event.context()) || event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            changed = true;
+                        }
+                    }
+                    if (changed) {
+                        reloadIfChanged();
+                    }
+                } catch (RuntimeException e) {
+                    // Keep the current snapshot and keep watching; the next change gets another try
+                    System.out.println("Error reloading symptoms file: " + e.getMessage());
+                }
+                if (!key.reset()) {
+                    return; // The directory is gone
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // The watch service was closed; nothing more to watch
+        }
+    }
+}
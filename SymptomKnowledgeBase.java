@@ -0,0 +1,149 @@
+package VirtualDoctor;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * This class is an immutable snapshot of the symptom knowledge base: the diseases of the DiseaseType enum
+ * merged with those in the symptoms file, a SymptomMatcher compiled over all their symptoms and a
+ * DiagnosisModel that ranks differential diagnoses.
+ * A snapshot never changes once built, so any number of diagnoses can use it at once without locking;
+ * SymptomCatalog replaces the whole snapshot when the file changes.
+ * <p>
+ * Each line of the symptoms file reads "symptoms : disease : prescription", with the symptoms separated by
+ * commas. A line naming a disease that is already known adds its symptoms to it and replaces its prescription.
+ */
+public class SymptomKnowledgeBase {
+    private final List<DiseaseEntry> entries;
+    private final SymptomMatcher<DiseaseEntry> matcher;
+    private final DiagnosisModel model;
+
+    /**
+     * Constructor to build a snapshot over the given entries.
+     *
+     * @param entries the disease entries
+     */
+    public SymptomKnowledgeBase(List<DiseaseEntry> entries) {
+        this.entries = Collections.unmodifiableList(new ArrayList<>(entries));
+        Map<DiseaseEntry, List<String>> phrases = new LinkedHashMap<>();
+        for (DiseaseEntry entry : this.entries) {
+            phrases.put(entry, entry.getSymptoms());
+        }
+        this.matcher = new SymptomMatcher<>(phrases);
+        this.model = new DiagnosisModel(this.entries);
+    }
+
+    /**
+     * Builds a snapshot from the DiseaseType enum and the symptoms file.
+     *
+     * @param symptomsFile the symptoms file; a missing file adds nothing
+     * @return the snapshot
+     */
+    public static SymptomKnowledgeBase load(String symptomsFile) {
+        Map<String, DiseaseEntry> byName = new LinkedHashMap<>(); // Case-folded name -> entry
+        for (DiseaseType type : DiseaseType.values()) {
+            DiseaseEntry entry = DiseaseEntry.of(type);
+            byName.merge(entry.getName().toLowerCase(Locale.ROOT), entry, DiseaseEntry::mergeWith);
+        }
+        File file = new File(symptomsFile);
+        if (file.exists()) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    DiseaseEntry entry = parseLine(line);
+                    if (entry != null) {
+                        byName.merge(entry.getName().toLowerCase(Locale.ROOT), entry, DiseaseEntry::mergeWith);
+                    }
+                }
+            } catch (IOException e) {
+                System.out.println("Error loading symptoms and diseases data: " + e.getMessage());
+            }
+        }
+        return new SymptomKnowledgeBase(new ArrayList<>(byName.values()));
+    }
+
+    /**
+     * Parses one "symptoms : disease : prescription" line of the symptoms file.
+     *
+     * @param line the line
+     * @return the disease entry, or null if the line is not an entry
+     */
+    static DiseaseEntry parseLine(String line) {
+        String[] parts = line.split(":", 3);
+        if (parts.length != 3 || parts[1].trim().isEmpty()) {
+            return null;
+        }
+        return new DiseaseEntry(parts[1].trim(), DiseaseEntry.splitSymptoms(parts[0]), parts[2].trim(),
+                DiseaseEntry.DEFAULT_DOSAGE_INSTRUCTION);
+    }
+
+    /**
+     * Builds a new snapshot with one more entry, merged the same way as a line of the symptoms file.
+     * This snapshot is left unchanged.
+     *
+     * @param added the entry to add
+     * @return the new snapshot
+     */
+    public SymptomKnowledgeBase withEntry(DiseaseEntry added) {
+        List<DiseaseEntry> merged = new ArrayList<>(entries.size() + 1);
+        String name = added.getName().toLowerCase(Locale.ROOT);
+        boolean known = false;
+        for (DiseaseEntry entry : entries) {
+            if (entry.getName().toLowerCase(Locale.ROOT).equals(name)) {
+                merged.add(entry.mergeWith(added));
+                known = true;
+            } else {
+                merged.add(entry);
+            }
+        }
+        if (!known) {
+            merged.add(added);
+        }
+        return new SymptomKnowledgeBase(merged);
+    }
+
+    /**
+     * Finds the disease that best matches a description.
+     *
+     * @param description the patient's description of their symptoms
+     * @return the best-matching disease, or null if no known symptom is mentioned
+     */
+    public DiseaseEntry diagnose(String description) {
+        return matcher.best(description);
+    }
+
+    /**
+     * Ranks the possible diagnoses for a description with the naive Bayes model.
+     *
+     * @param description the patient's description of their symptoms
+     * @return the diseases sharing a word with the description, most probable first
+     */
+    public List<DiagnosisModel.Diagnosis> rank(String description) {
+        return model.rank(description);
+    }
+
+    /**
+     * Ranks the possible diagnoses for many descriptions in parallel.
+     *
+     * @param descriptions the descriptions
+     * @return the rankings, in the same order as the descriptions
+     */
+    public List<List<DiagnosisModel.Diagnosis>> rankAll(List<String> descriptions) {
+        return model.rankAll(descriptions);
+    }
+
+    /**
+     * Gets all diseases in the snapshot.
+     *
+     * @return the disease entries, unmodifiable
+     */
+    public List<DiseaseEntry> getEntries() {
+        return entries;
+    }
+}
@@ -0,0 +1,271 @@
+package VirtualDoctor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * This class finds every known symptom phrase in a free-text description in a single pass (Aho-Corasick).
+ * The phrases are compiled once into a dense state table with one row per state and one column per character
+ * that occurs in a phrase, so scanning a description costs one table lookup per character however large the
+ * catalog is. Matching is case-insensitive, and a phrase only matches where a word starts, so "hiv" is not
+ * found in "archive" while "cough" is found in "coughing".
+ * <p>
+ * Each value (e.g. a disease) is scored by the total length of its distinct phrases found in the description,
+ * so a value matched by a longer, more specific phrase ("whooping cough") ranks above one matched by a shorter
+ * phrase it contains ("cough"). Scanning uses per-thread scratch arrays and does not allocate.
+ *
+ * @param <T> the type of the values the phrases map to
+ */
+public class SymptomMatcher<T> {
+    private static final int ASCII = 128;
+
+    private final List<T> values = new ArrayList<>();
+    private final int[] asciiColumns = new int[ASCII]; // Column of each ASCII character, 0 if it occurs in no phrase
+    private final char[] otherChars;                   // Sorted non-ASCII characters that occur in phrases
+    private final int columns;
+    private final int[] transitions;     // states x columns, always a valid next state
+    private final int[] statePhrase;     // Phrase ending at each state, or -1
+    private final int[] outputLink;      // Nearest suffix state that ends a phrase, or -1
+    private final int[] phraseLength;
+    private final int[][] phraseValues;  // Values each phrase maps to
+    private final ThreadLocal<Scratch> scratch;
+
+    /**
+     * Constructor to compile the matcher.
+     *
+     * @param phrasesByValue the phrases of each value; the iteration order of the map breaks ties in scores
+     */
+    public SymptomMatcher(Map<T, ? extends Collection<String>> phrasesByValue) {
+        // Number the distinct phrases and collect the values each one maps to
+        Map<String, Integer> phraseIds = new HashMap<>();
+        List<String> phrases = new ArrayList<>();
+        List<List<Integer>> valuesOfPhrase = new ArrayList<>();
+        for (Map.Entry<T, ? extends Collection<String>> entry : phrasesByValue.entrySet()) {
+            int valueId = values.size();
+            values.add(entry.getKey());
+            for (String raw : entry.getValue()) {
+                String phrase = normalize(raw);
+                if (phrase.isEmpty()) {
+                    continue;
+                }
+                Integer id = phraseIds.get(phrase);
+                if (id == null) {
+                    id = phrases.size();
+                    phraseIds.put(phrase, id);
+                    phrases.add(phrase);
+                    valuesOfPhrase.add(new ArrayList<>(1));
+                }
+                List<Integer> phraseValueIds = valuesOfPhrase.get(id);
+                if (!phraseValueIds.contains(valueId)) {
+                    phraseValueIds.add(valueId);
+                }
+            }
+        }
+
+        // Assign a column to each character used in a phrase; column 0 stands for every other character
+        TreeSet<Character> nonAscii = new TreeSet<>();
+        int column = 1;
+        for (String phrase : phrases) {
+            for (int i = 0; i < phrase.length(); i++) {
+                char c = phrase.charAt(i);
+                if (c < ASCII) {
+                    if (asciiColumns[c] == 0) {
+                        asciiColumns[c] = column++;
+                    }
+                } else {
+                    nonAscii.add(c);
+                }
+            }
+        }
+        otherChars = new char[nonAscii.size()];
+        int index = 0;
+        for (char c : nonAscii) {
+            otherChars[index++] = c;
+        }
+        columns = column + otherChars.length;
+
+        // Build the trie; a catalog never needs more states than it has phrase characters
+        int maxStates = 1;
+        for (String phrase : phrases) {
+            maxStates += phrase.length();
+        }
+        int[] trie = new int[maxStates * columns]; // 0 means no child (the root is never a child)
+        int[] phraseAt = new int[maxStates];
+        Arrays.fill(phraseAt, -1);
+        int states = 1;
+        phraseLength = new int[phrases.size()];
+        phraseValues = new int[phrases.size()][];
+        for (int p = 0; p < phrases.size(); p++) {
+            String phrase = phrases.get(p);
+            int state = 0;
+            for (int i = 0; i < phrase.length(); i++) {
+                int slot = state * columns + columnOf(phrase.charAt(i));
+                if (trie[slot] == 0) {
+                    trie[slot] = states++;
+                }
+                state = trie[slot];
+            }
+            phraseAt[state] = p;
+            phraseLength[p] = phrase.length();
+            phraseValues[p] = valuesOfPhrase.get(p).stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        // Breadth-first pass: fill in the failure transitions so every state has a move for every column
+        transitions = Arrays.copyOf(trie, states * columns);
+        statePhrase = Arrays.copyOf(phraseAt, states);
+        outputLink = new int[states];
+        int[] failure = new int[states];
+        int[] queue = new int[states];
+        int head = 0;
+        int tail = 0;
+        outputLink[0] = -1;
+        for (int c = 0; c < columns; c++) {
+            int child = transitions[c];
+            if (child != 0) {
+                failure[child] = 0;
+                outputLink[child] = -1;
+                queue[tail++] = child;
+            }
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            for (int c = 0; c < columns; c++) {
+                int slot = state * columns + c;
+                int child = transitions[slot];
+                int fallback = transitions[failure[state] * columns + c];
+                if (child == 0) {
+                    transitions[slot] = fallback;
+                } else {
+                    failure[child] = fallback;
+                    outputLink[child] = statePhrase[fallback] >= 0 ? fallback : outputLink[fallback];
+                    queue[tail++] = child;
+                }
+            }
+        }
+
+        int phraseCount = phrases.size();
+        int valueCount = values.size();
+        scratch = ThreadLocal.withInitial(() -> new Scratch(phraseCount, valueCount));
+    }
+
+    /**
+     * Finds the best-scoring value for the description.
+     *
+     * @param description the free-text description
+     * @return the best value, or null if no phrase was found
+     */
+    public T best(String description) {
+        Scratch s = scan(description);
+        int best = -1;
+        for (int i = 0; i < s.touchedCount; i++) {
+            int value = s.touched[i];
+            if (best < 0 || s.score[value] > s.score[best] || (s.score[value] == s.score[best] && value < best)) {
+                best = value;
+            }
+        }
+        return best < 0 ? null : values.get(best);
+    }
+
+    /**
+     * Scans the description once and scores the values into this thread's scratch arrays.
+     *
+     * @param description the free-text description
+     * @return the scratch arrays holding the scores
+     */
+    private Scratch scan(String description) {
+        Scratch s = scratch.get();
+        s.reset();
+        int state = 0;
+        for (int i = 0; i < description.length(); i++) {
+            state = transitions[state * columns + columnOf(Character.toLowerCase(description.charAt(i)))];
+            // Walk the phrases that end here: the state's own and those of its suffixes
+            for (int out = statePhrase[state] >= 0 ? state : outputLink[state]; out >= 0; out = outputLink[out]) {
+                int phrase = statePhrase[out];
+                int start = i + 1 - phraseLength[phrase];
+                if (start > 0 && Character.isLetterOrDigit(description.charAt(start - 1))) {
+                    continue; // The phrase starts in the middle of a word
+                }
+                if (s.phraseStamp[phrase] == s.stamp) {
+                    continue; // Each phrase counts once
+                }
+                s.phraseStamp[phrase] = s.stamp;
+                for (int value : phraseValues[phrase]) {
+                    if (s.valueStamp[value] != s.stamp) {
+                        s.valueStamp[value] = s.stamp;
+                        s.score[value] = 0;
+                        s.touched[s.touchedCount++] = value;
+                    }
+                    s.score[value] += phraseLength[phrase];
+                }
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Gets the column of a (lower-case) character in the state table.
+     *
+     * @param c the character
+     * @return the column, 0 for characters that occur in no phrase
+     */
+    private int columnOf(char c) {
+        if (c < ASCII) {
+            return asciiColumns[c];
+        }
+        int index = Arrays.binarySearch(otherChars, c);
+        return index < 0 ? 0 : columns - otherChars.length + index;
+    }
+
+    /**
+     * Normalizes a phrase for compiling: trimmed, lower-case and with runs of spaces collapsed.
+     *
+     * @param phrase the phrase
+     * @return the normalized phrase
+     */
+    private static String normalize(String phrase) {
+        StringBuilder normalized = new StringBuilder(phrase.length());
+        String trimmed = phrase.trim();
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = Character.toLowerCase(trimmed.charAt(i));
+            if (c != ' ' || normalized.charAt(normalized.length() - 1) != ' ') {
+                normalized.append(c);
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Per-thread working arrays for a scan. Stamps mark which entries belong to the current scan,
+     * so nothing has to be cleared between scans.
+     */
+    private static final class Scratch {
+        private final int[] phraseStamp;
+        private final int[] valueStamp;
+        private final int[] score;
+        private final int[] touched;
+        private int touchedCount;
+        private int stamp;
+
+        private Scratch(int phraseCount, int valueCount) {
+            phraseStamp = new int[phraseCount];
+            valueStamp = new int[valueCount];
+            score = new int[valueCount];
+            touched = new int[valueCount];
+        }
+
+        private void reset() {
+            touchedCount = 0;
+            if (++stamp == 0) {
+                // The stamp wrapped around; clear the arrays so old marks cannot match
+                Arrays.fill(phraseStamp, 0);
+                Arrays.fill(valueStamp, 0);
+                stamp = 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,762 @@
+package VirtualDoctor;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class stores patients' vitals as time series.
+ * In memory, each patient's readings are held in primitive columns (timestamp, temperature, systolic and
+ * diastolic pressure), sorted by time, so a range query is a binary search and an array copy and never parses text.
+ * <p>
+ * On disk, the vitals file is a sequence of records, each a tag byte, a varint length and a payload:
+ * a patient record assigns a patient name a number, and a block record holds a run of one patient's readings
+ * column by column, with times in seconds, in the order they were taken. Each value is stored as the difference
+ * from the same column of the patient's previous reading in the file, as a zigzag varint, so a typical reading
+ * takes a few bytes even when the timer writes blocks of a single reading. The first block of each patient
+ * written in a session stores its values relative to zero instead, and the blocks after it carry a one-byte block
+ * number, so if a block is lost, the patient's later blocks up to the next session are skipped rather than read
+ * wrongly. New readings are buffered per patient and written when a patient has a full block, on a
+ * timer, and on close. Each write is one append of whole records; if it fails, the file is cut back to its last
+ * good length and the readings stay buffered, so a crash can lose only the readings still buffered.
+ * <p>
+ * On load, a record cut short at the end of the file (a torn write) is cut off. A record whose length cannot be
+ * right is damage rather than a torn write: the file is copied aside before the unreadable rest is cut off.
+ * A complete record whose payload does not parse is skipped.
+ * <p>
+ * When the vitals file does not exist yet, the readings of the old text file ("Patient: X - Temperature: 37.0°C,
+ * Blood Pressure: 120/80" per line) are imported once. Those lines carry no time, so they are all given the
+ * text file's last-modified time.
+ */
+public class VitalsStore {
+    private static final String VITALS_FILE = "patient_vitals.dat";
+    private static final String LEGACY_VITALS_FILE = "patient_vitals.txt";
+    private static final int PATIENT_RECORD = 'P';
+    private static final int BLOCK_RECORD = 'B';            // Values relative to zero
+    private static final int CHAINED_BLOCK_RECORD = 'D';    // Values relative to the patient's previous reading
+    private static final int BLOCK_SIZE = 64;               // Buffered readings of one patient written as one block
+    private static final int MAX_NAME_LENGTH = 4096;        // Characters; keeps every record far below the next limit
+    private static final int MAX_RECORD_LENGTH = 1 << 20;   // Longer records are never written, so one is damage
+    private static final int MIN_READING_BYTES = 4;         // One varint per column
+    private static final long FLUSH_INTERVAL_SECONDS = 5;
+    private static final int INITIAL_CAPACITY = 8;
+    private static final long MILLIS_PER_SECOND = 1000;     // Reading times are kept to the second
+
+    private final File file;
+    private final Map<String, Series> byPatient = new HashMap<>(); // Folded name -> series; all fields guarded by this
+    private final List<Series> series = new ArrayList<>();          // By patient number
+    private OutputStream writer;
+    private long durableLength;      // Length of the file up to the last complete write
+    private int writtenPatients;     // Patients whose patient record is in the file; records are written in order
+
+    /**
+     * Constructor to open the default vitals file, importing the old text file if there is no vitals file yet.
+     */
+    public VitalsStore() {
+        this(VITALS_FILE, LEGACY_VITALS_FILE);
+    }
+
+    /**
+     * Constructor to open the given vitals file, importing the given text file if there is no vitals file yet.
+     *
+     * @param vitalsFile the vitals file
+     * @param legacyVitalsFile the old text vitals file
+     */
+    public VitalsStore(String vitalsFile, String legacyVitalsFile) {
+        this.file = new File(vitalsFile);
+        if (file.exists()) {
+            load();
+        } else {
+            importLegacy(new File(legacyVitalsFile));
+        }
+    }
+
+    /**
+     * Starts a daemon thread that writes buffered readings at a fixed interval.
+     */
+    public void startFlushing() {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "vitals-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Records a reading taken now.
+     *
+     * @param patientName the patient
+     * @param temperature the temperature in °C
+     * @param systolic the systolic blood pressure
+     * @param diastolic the diastolic blood pressure
+     */
+    public void record(String patientName, double temperature, int systolic, int diastolic) {
+        record(patientName, System.currentTimeMillis(), temperature, systolic, diastolic);
+    }
+
+    /**
+     * Records a reading.
+     *
+     * @param patientName the patient
+     * @param timestamp when the reading was taken, in milliseconds since the epoch, kept to the second
+     * @param temperature the temperature in °C, kept to a hundredth of a degree
+     * @param systolic the systolic blood pressure
+     * @param diastolic the diastolic blood pressure
+     * @throws IllegalArgumentException if the patient name is longer than 4096 characters
+     */
+    public synchronized void record(String patientName, long timestamp, double temperature, int systolic, int diastolic) {
+        if (patientName.length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("Patient name too long: " + patientName.length() + " characters");
+        }
+        Series patient = seriesOf(patientName);
+        patient.add(Math.floorDiv(timestamp, MILLIS_PER_SECOND) * MILLIS_PER_SECOND, (int) Math.round(temperature * 100),
+                systolic, diastolic);
+        if (patient.pendingCount >= BLOCK_SIZE) {
+            writeBlocks(List.of(patient));
+        }
+    }
+
+    /**
+     * Gets a patient's readings taken within a time window.
+     *
+     * @param patientName the patient, in any case
+     * @param from the start of the window, in milliseconds since the epoch, inclusive
+     * @param to the end of the window, in milliseconds since the epoch, exclusive
+     * @return the readings in the window, oldest first
+     */
+    public synchronized Range getReadings(String patientName, long from, long to) {
+        Series patient = byPatient.get(PatientIndex.fold(patientName));
+        if (patient == null) {
+            return new Range(patientName, new long[0], new int[0], new int[0], new int[0]);
+        }
+        int start = patient.indexOf(from);
+        int end = Math.max(start, patient.indexOf(to));
+        return new Range(patient.name, Arrays.copyOfRange(patient.times, start, end),
+                Arrays.copyOfRange(patient.temperatures, start, end), Arrays.copyOfRange(patient.systolics, start, end),
+                Arrays.copyOfRange(patient.diastolics, start, end));
+    }
+
+    /**
+     * Gets all readings of every patient.
+     *
+     * @return one range per patient, in the order patients were first seen
+     */
+    public synchronized List<Range> getAllReadings() {
+        List<Range> all = new ArrayList<>(series.size());
+        for (Series patient : series) {
+            all.add(getReadings(patient.name, Long.MIN_VALUE, Long.MAX_VALUE));
+        }
+        return all;
+    }
+
+    /**
+     * Writes every buffered reading to the vitals file.
+     *
+     * @return true if every reading is in the file, false otherwise
+     */
+    public synchronized boolean flush() {
+        List<Series> pending = new ArrayList<>();
+        for (Series patient : series) {
+            if (patient.pendingCount > 0) {
+                pending.add(patient);
+            }
+        }
+        return pending.isEmpty() || writeBlocks(pending);
+    }
+
+    /**
+     * Writes every buffered reading and closes the vitals file.
+     */
+    public synchronized void close() {
+        flush();
+        closeWriter();
+    }
+
+    /**
+     * Gets a patient's series, creating it if the patient is new.
+     *
+     * @param patientName the patient
+     * @return the patient's series
+     */
+    private Series seriesOf(String patientName) {
+        Series patient = byPatient.get(PatientIndex.fold(patientName));
+        if (patient == null) {
+            patient = new Series(patientName, series.size());
+            byPatient.put(PatientIndex.fold(patientName), patient);
+            series.add(patient); // Its patient record is written with the first block written after it
+        }
+        return patient;
+    }
+
+    /**
+     * Writes the buffered readings of some patients in one append, preceded by the patient records not in the
+     * file yet, in the order the patients were numbered, up to the last of these patients. The patients are only
+     * marked as written once the append has succeeded; if it fails, the writer is closed, and the file is cut back
+     * to its last good length when it is reopened, so a retry starts clean.
+     *
+     * @param patients the patients with buffered readings
+     * @return true if the readings were written, false otherwise
+     */
+    private boolean writeBlocks(List<Series> patients) {
+        VarintBuffer batch = new VarintBuffer();
+        int definedPatients = writtenPatients;
+        for (Series patient : patients) {
+            definedPatients = Math.max(definedPatients, patient.id + 1);
+        }
+        for (int id = writtenPatients; id < definedPatients; id++) {
+            VarintBuffer payload = new VarintBuffer();
+            byte[] name = series.get(id).name.getBytes(StandardCharsets.UTF_8);
+            payload.writeVarint(id);
+            payload.write(name, 0, name.length);
+            writeRecord(batch, PATIENT_RECORD, payload);
+        }
+        long[][] chains = new long[patients.size()][];
+        for (int p = 0; p < patients.size(); p++) {
+            Series patient = patients.get(p);
+            long[] chain = patient.chained ? patient.last.clone() : null;
+            for (int first = 0; first < patient.pendingCount; first += BLOCK_SIZE) {
+                chain = writeBlock(batch, patient, first, Math.min(BLOCK_SIZE, patient.pendingCount - first), chain);
+            }
+            chains[p] = chain;
+        }
+        try {
+            if (writer == null) {
+                try (RandomAccessFile truncate = new RandomAccessFile(file, "rw")) {
+                    if (truncate.length() > durableLength) {
+                        truncate.setLength(durableLength); // Drop what a failed write left behind
+                    }
+                }
+                writer = new FileOutputStream(file, true);
+            }
+            batch.writeTo(writer);
+        } catch (IOException e) {
+            System.out.println("Error saving vitals: " + e.getMessage());
+            closeWriter(); // Part of the batch may have reached the file; it is cut off when the file is reopened
+            return false;
+        }
+        durableLength += batch.size();
+        writtenPatients = definedPatients;
+        for (int p = 0; p < patients.size(); p++) {
+            Series patient = patients.get(p);
+            patient.pendingCount = 0;
+            patient.last = chains[p];
+            patient.chained = true;
+        }
+        return true;
+    }
+
+    /**
+     * Encodes a run of a patient's buffered readings as one block record.
+     *
+     * @param batch the buffer to write to
+     * @param patient the patient's series
+     * @param first the first buffered reading of the run
+     * @param count the number of readings in the run
+     * @param chain the patient's chain in the file (see Series.last), or null to write values relative to zero
+     * @return the chain after this block
+     */
+    private static long[] writeBlock(VarintBuffer batch, Series patient, int first, int count, long[] chain) {
+        long[] previous = chain == null ? new long[5] : chain.clone();
+        VarintBuffer payload = new VarintBuffer();
+        payload.writeVarint(patient.id);
+        payload.writeVarint(count);
+        previous[4] = chain == null ? 0 : (previous[4] + 1) & 0x7F;
+        if (chain != null) {
+            payload.writeVarint(previous[4]); // Lets the reader notice a lost block of this patient
+        }
+        for (int column = 0; column < 4; column++) {
+            for (int i = first; i < first + count; i++) {
+                long value = column == 0 ? patient.pendingTimes[i] / MILLIS_PER_SECOND : patient.pendingValues[column - 1][i];
+                payload.writeSignedVarint(value - previous[column]);
+                previous[column] = value;
+            }
+        }
+        writeRecord(batch, chain == null ? BLOCK_RECORD : CHAINED_BLOCK_RECORD, payload);
+        return previous;
+    }
+
+    /**
+     * Encodes one record: its tag, the payload length and the payload.
+     *
+     * @param batch the buffer to write to
+     * @param tag the record tag
+     * @param payload the payload
+     */
+    private static void writeRecord(VarintBuffer batch, int tag, VarintBuffer payload) {
+        batch.write(tag);
+        batch.writeVarint(payload.size());
+        batch.write(payload.toByteArray(), 0, payload.size());
+    }
+
+    /**
+     * Closes the writer, ignoring errors; the next write reopens it.
+     */
+    private void closeWriter() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                System.out.println("Error closing vitals file: " + e.getMessage());
+            }
+            writer = null;
+        }
+    }
+
+    /**
+     * Reads the vitals file into memory. A record cut short at the end of the file is cut off the file; if a record's
+     * length is impossible, the file is first copied aside, since the rest of it cannot be read.
+     */
+    private void load() {
+        long fileLength = file.length();
+        long position = 0;
+        boolean damaged = false;
+        int skipped = 0;
+        long firstSkipped = -1;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            while (position < fileLength) {
+                int tag = in.read();
+                long length = readRecordLength(in);
+                long headerLength = 1 + varintLength(length);
+                if (length < 0 || length > MAX_RECORD_LENGTH) {
+                    damaged = true;
+                    break;
+                }
+                if (length > fileLength - position - headerLength) {
+                    break; // Cut short by a crash
+                }
+                byte[] payload = new byte[(int) length];
+                readFully(in, payload);
+                boolean applied;
+                try {
+                    applied = apply(tag, new ByteArrayInputStream(payload));
+                } catch (IOException e) {
+                    applied = false; // The record is complete, so its payload is damaged; later records are fine
+                }
+                if (!applied && skipped++ == 0) {
+                    firstSkipped = position;
+                }
+                position += headerLength + length;
+            }
+        } catch (EOFException e) {
+            // The file ends inside a record header
+        } catch (IOException e) {
+            System.out.println("Error reading vitals file: " + e.getMessage());
+            position = fileLength; // Leave the file alone; appending still works
+        }
+        if (skipped > 0) {
+            System.out.println("Skipped " + skipped + " invalid vitals records, the first at offset " + firstSkipped);
+        }
+        if (position < fileLength) {
+            cutOff(position, damaged);
+        }
+        durableLength = position;
+        writtenPatients = series.size();
+        for (Series patient : series) {
+            patient.chained = false; // This session's first block of each patient starts from zero again
+        }
+    }
+
+    /**
+     * Cuts the vitals file back to the end of its last readable record.
+     *
+     * @param validLength the length of the readable part of the file
+     * @param damaged true if the rest is damaged rather than a record cut short by a crash
+     */
+    private void cutOff(long validLength, boolean damaged) {
+        try {
+            if (damaged) {
+                File copy = new File(file.getPath() + ".damaged-" + System.currentTimeMillis());
+                Files.copy(file.toPath(), copy.toPath());
+                System.out.println("Vitals file is damaged at offset " + validLength + "; a copy was saved as "
+                        + copy.getName() + " and the rest of the file was dropped.");
+            } else {
+                System.out.println("Dropping incomplete vitals record at offset " + validLength);
+            }
+            try (RandomAccessFile truncate = new RandomAccessFile(file, "rw")) {
+                truncate.setLength(validLength);
+            }
+        } catch (IOException e) {
+            System.out.println("Error repairing vitals file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Applies one record of the vitals file.
+     *
+     * @param tag the record tag
+     * @param in the record's payload
+     * @return true if the record was understood, false otherwise
+     * @throws IOException if the payload is cut short
+     */
+    private boolean apply(int tag, ByteArrayInputStream in) throws IOException {
+        if (tag == PATIENT_RECORD) {
+            long id = readVarint(in);
+            String name = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            if (id != series.size()) {
+                return false; // Patients are numbered in the order they are written
+            }
+            Series patient = new Series(name, (int) id);
+            byPatient.putIfAbsent(PatientIndex.fold(name), patient);
+            series.add(patient);
+            return true;
+        }
+        if (tag == BLOCK_RECORD || tag == CHAINED_BLOCK_RECORD) {
+            long id = readVarint(in);
+            long count = readVarint(in);
+            if (id < 0 || id >= series.size() || count < 0 || count > in.available() / MIN_READING_BYTES) {
+                return false;
+            }
+            Series patient = series.get((int) id);
+            long[] previous = tag == BLOCK_RECORD ? new long[5] : patient.last.clone();
+            if (tag == CHAINED_BLOCK_RECORD) {
+                previous[4] = (previous[4] + 1) & 0x7F;
+                if (!patient.chained || readVarint(in) != previous[4]) {
+                    patient.chained = false; // A block it follows on from was lost; skip until an absolute block
+                    return false;
+                }
+            }
+            patient.chained = false; // Until this block has been read in full
+            long[][] columns = new long[4][(int) count];
+            for (int column = 0; column < 4; column++) {
+                for (int i = 0; i < count; i++) {
+                    previous[column] += readSignedVarint(in);
+                    columns[column][i] = previous[column];
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                patient.insert(columns[0][i] * MILLIS_PER_SECOND, (int) columns[1][i], (int) columns[2][i],
+                        (int) columns[3][i]);
+            }
+            patient.last = previous;
+            patient.chained = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Imports the readings of the old text vitals file and writes them to the vitals file.
+     *
+     * @param legacyFile the old text vitals file
+     */
+    private void importLegacy(File legacyFile) {
+        if (!legacyFile.exists()) {
+            return;
+        }
+        long timestamp = legacyFile.lastModified() / MILLIS_PER_SECOND * MILLIS_PER_SECOND;
+        int imported = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(legacyFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int nameEnd = line.indexOf(" - Temperature: ");
+                int pressureStart = line.indexOf("C, Blood Pressure: ");
+                if (!line.startsWith("Patient: ") || nameEnd < 0 || pressureStart < nameEnd) {
+                    continue;
+                }
+                // The degree sign was written in the platform charset, so only the digits before it are read
+                int temperatureStart = nameEnd + " - Temperature: ".length();
+                int temperatureEnd = temperatureStart;
+                while (temperatureEnd < pressureStart
+                        && (Character.isDigit(line.charAt(temperatureEnd)) || line.charAt(temperatureEnd) == '.')) {
+                    temperatureEnd++;
+                }
+                String[] pressure = line.substring(pressureStart + "C, Blood Pressure: ".length()).trim().split("/");
+                try {
+                    double temperature = Double.parseDouble(line.substring(temperatureStart, temperatureEnd));
+                    if (pressure.length == 2) {
+                        Series patient = seriesOf(line.substring("Patient: ".length(), nameEnd));
+                        patient.add(timestamp, (int) Math.round(temperature * 100), Integer.parseInt(pressure[0].trim()),
+                                Integer.parseInt(pressure[1].trim()));
+                        imported++;
+                    }
+                } catch (NumberFormatException e) {
+                    System.out.println("Skipping invalid vitals entry: " + line);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading old vitals file: " + e.getMessage());
+            return;
+        }
+        if (imported > 0 && flush()) {
+            System.out.println("Imported " + imported + " vitals readings from " + legacyFile.getName() + ".");
+        }
+    }
+
+    /**
+     * Fills a buffer from a stream.
+     *
+     * @param in the stream
+     * @param buffer the buffer to fill
+     * @throws IOException if the stream ends before the buffer is full
+     */
+    private static void readFully(InputStream in, byte[] buffer) throws IOException {
+        int filled = 0;
+        while (filled < buffer.length) {
+            int read = in.read(buffer, filled, buffer.length - filled);
+            if (read < 0) {
+                throw new EOFException();
+            }
+            filled += read;
+        }
+    }
+
+    /**
+     * Reads an unsigned varint.
+     *
+     * @param in the stream
+     * @return the value
+     * @throws IOException if the stream ends inside the varint
+     */
+    private static long readVarint(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Varint too long");
+    }
+
+    /**
+     * Reads the length of a record, a varint of at most three bytes.
+     *
+     * @param in the stream
+     * @return the length, or -1 if the bytes cannot be a length written by this class
+     * @throws IOException if the stream ends inside the length
+     */
+    private static long readRecordLength(InputStream in) throws IOException {
+        long length = 0;
+        for (int shift = 0; shift < 21; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            length |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return shift > 0 && b == 0 ? -1 : length; // A trailing zero byte is never written
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads a zigzag-encoded signed varint.
+     *
+     * @param in the stream
+     * @return the value
+     * @throws IOException if the stream ends inside the varint
+     */
+    private static long readSignedVarint(InputStream in) throws IOException {
+        long zigzag = readVarint(in);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    /**
+     * Gets the number of bytes an unsigned varint takes.
+     *
+     * @param value the value
+     * @return the number of bytes
+     */
+    private static int varintLength(long value) {
+        int length = 1;
+        while ((value >>>= 7) != 0) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * A byte buffer that can also write varints.
+     */
+    private static final class VarintBuffer extends ByteArrayOutputStream {
+        private void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        private void writeSignedVarint(long value) {
+            writeVarint((value << 1) ^ (value >> 63)); // Zigzag: small negative numbers stay small
+        }
+    }
+
+    /**
+     * One patient's readings in primitive columns, always sorted by time, plus the readings not yet in the file
+     * in the order they were taken.
+     */
+    private static final class Series {
+        private final String name;
+        private final int id;
+        private long[] times = new long[INITIAL_CAPACITY];
+        private int[] temperatures = new int[INITIAL_CAPACITY]; // Hundredths of a degree Celsius
+        private int[] systolics = new int[INITIAL_CAPACITY];
+        private int[] diastolics = new int[INITIAL_CAPACITY];
+        private int size;
+        private long[] pendingTimes = new long[INITIAL_CAPACITY];
+        private int[][] pendingValues = new int[3][INITIAL_CAPACITY]; // Temperature, systolic, diastolic
+        private int pendingCount;            // Readings not in the file yet
+        // The patient's chain in the file: the last reading's seconds and three values, then the block number
+        private long[] last = new long[5];
+        private boolean chained;             // The next block can be written or read relative to last
+
+        private Series(String name, int id) {
+            this.name = name;
+            this.id = id;
+        }
+
+        /**
+         * Adds a new reading: it is inserted in time order and buffered until it is written to the file.
+         */
+        private void add(long time, int temperature, int systolic, int diastolic) {
+            insert(time, temperature, systolic, diastolic);
+            if (pendingCount == pendingTimes.length) {
+                pendingTimes = Arrays.copyOf(pendingTimes, pendingCount * 2);
+                for (int column = 0; column < 3; column++) {
+                    pendingValues[column] = Arrays.copyOf(pendingValues[column], pendingCount * 2);
+                }
+            }
+            pendingTimes[pendingCount] = time;
+            pendingValues[0][pendingCount] = temperature;
+            pendingValues[1][pendingCount] = systolic;
+            pendingValues[2][pendingCount] = diastolic;
+            pendingCount++;
+        }
+
+        /**
+         * Inserts a reading, keeping the columns sorted by time. A reading older than the last one (e.g. after
+         * the clock was set back) is moved into place; readings taken at the same second keep their order.
+         */
+        private void insert(long time, int temperature, int systolic, int diastolic) {
+            if (size == times.length) {
+                int capacity = size * 2;
+                times = Arrays.copyOf(times, capacity);
+                temperatures = Arrays.copyOf(temperatures, capacity);
+                systolics = Arrays.copyOf(systolics, capacity);
+                diastolics = Arrays.copyOf(diastolics, capacity);
+            }
+            int at = size == 0 || times[size - 1] <= time ? size : indexOf(time + 1); // After readings at the same time
+            System.arraycopy(times, at, times, at + 1, size - at);
+            System.arraycopy(temperatures, at, temperatures, at + 1, size - at);
+            System.arraycopy(systolics, at, systolics, at + 1, size - at);
+            System.arraycopy(diastolics, at, diastolics, at + 1, size - at);
+            times[at] = time;
+            temperatures[at] = temperature;
+            systolics[at] = systolic;
+            diastolics[at] = diastolic;
+            size++;
+        }
+
+        /**
+         * Finds the first reading taken at or after a time.
+         *
+         * @param time the time
+         * @return the index of the first reading at or after the time, or size if there is none
+         */
+        private int indexOf(long time) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (times[middle] < time) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * A patient's readings within a time window, as primitive columns.
+     */
+    public static final class Range {
+        private final String patientName;
+        private final long[] times;
+        private final int[] temperatures;
+        private final int[] systolics;
+        private final int[] diastolics;
+
+        private Range(String patientName, long[] times, int[] temperatures, int[] systolics, int[] diastolics) {
+            this.patientName = patientName;
+            this.times = times;
+            this.temperatures = temperatures;
+            this.systolics = systolics;
+            this.diastolics = diastolics;
+        }
+
+        /**
+         * Gets the patient the readings belong to.
+         *
+         * @return the patient's name
+         */
+        public String getPatientName() {
+            return patientName;
+        }
+
+        /**
+         * Gets the number of readings.
+         *
+         * @return the number of readings
+         */
+        public int size() {
+            return times.length;
+        }
+
+        /**
+         * Gets when a reading was taken.
+         *
+         * @param i the reading, from 0
+         * @return the time in milliseconds since the epoch
+         */
+        public long getTimestamp(int i) {
+            return times[i];
+        }
+
+        /**
+         * Gets the temperature of a reading.
+         *
+         * @param i the reading, from 0
+         * @return the temperature in °C
+         */
+        public double getTemperature(int i) {
+            return temperatures[i] / 100.0;
+        }
+
+        /**
+         * Gets the systolic blood pressure of a reading.
+         *
+         * @param i the reading, from 0
+         * @return the systolic pressure
+         */
+        public int getSystolic(int i) {
+            return systolics[i];
+        }
+
+        /**
+         * Gets the diastolic blood pressure of a reading.
+         *
+         * @param i the reading, from 0
+         * @return the diastolic pressure
+         */
+        public int getDiastolic(int i) {
+            return diastolics[i];
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package VirtualDoctor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class is a stress check for booking appointments from several terminals at once.
+ * Every thread tries to book random slots of the same doctors on the same days, so most attempts race for a
+ * slot that another thread is taking. Afterwards the appointments file must hold exactly one line per
+ * successful booking and no slot twice, and a calendar reloaded from the file must see the same slots taken.
+ * The run reports bookings and attempts per second.
+ * <p>
+ * The appointments are logged to a temporary file, so this can be run from any directory:
+ * <pre>
+ * javac -d out *.java stress/*.java
+ * java -cp out VirtualDoctor.AppointmentBookingStress
+ * </pre>
+ * The exit status is 1 if a slot was double-booked or a booking was lost.
+ */
+public class AppointmentBookingStress {
+    private static final int THREADS = 8;
+    private static final int ATTEMPTS_PER_THREAD = 20_000;
+    private static final int DAYS = 5;
+
+    /**
+     * Runs the stress check.
+     *
+     * @param args not used
+     * @throws IOException if the temporary appointments file cannot be created or read
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path file = Files.createTempFile("appointments", ".txt");
+        try {
+            run(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Books from several threads into a calendar logged to the given file and checks the result.
+     *
+     * @param file the appointments file
+     * @throws IOException if the appointments file cannot be read
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    private static void run(Path file) throws IOException, InterruptedException {
+        AppointmentCalendar calendar = new AppointmentCalendar(file.toString());
+        List<String> doctors = calendar.getDoctors();
+        List<String> slots = calendar.getTimeSlots();
+        List<LocalDate> days = calendar.upcomingWorkingDays(DAYS + 1).subList(1, DAYS + 1); // Today's slots may have passed
+
+        AtomicInteger booked = new AtomicInteger();
+        ExecutorService terminals = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        long startTime = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            int terminal = t;
+            terminals.submit(() -> {
+                start.await();
+                Random random = new Random(terminal);
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    LocalTime time = LocalTime.parse(slots.get(random.nextInt(slots.size())), Appointment.TIME_FORMAT);
+                    Appointment appointment = new Appointment("terminal" + terminal + " patient" + i,
+                            doctors.get(random.nextInt(doctors.size())), days.get(random.nextInt(DAYS)), time);
+                    if (calendar.book(appointment)) {
+                        booked.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        terminals.shutdown();
+        terminals.awaitTermination(10, TimeUnit.MINUTES);
+        long micros = Math.max(1, (System.nanoTime() - startTime) / 1000);
+
+        // Every logged booking must be for a different slot
+        Set<String> loggedSlots = new HashSet<>();
+        int logged = 0;
+        for (String line : Files.readAllLines(file)) {
+            Appointment appointment = Appointment.parse(line);
+            if (appointment != null) {
+                logged++;
+                loggedSlots.add(appointment.getDoctor() + "|" + appointment.getStart());
+            }
+        }
+
+        // A calendar replayed from the file must see exactly the logged slots as taken
+        AppointmentCalendar reloaded = new AppointmentCalendar(file.toString());
+        int mismatched = 0;
+        for (String doctor : doctors) {
+            for (LocalDate day : days) {
+                for (String slot : slots) {
+                    LocalTime time = LocalTime.parse(slot, Appointment.TIME_FORMAT);
+                    boolean taken = loggedSlots.contains(doctor + "|" + LocalDateTime.of(day, time));
+                    if (reloaded.isAvailable(doctor, day, time) == taken) {
+                        mismatched++;
+                    }
+                }
+            }
+        }
+
+        int attempts = THREADS * ATTEMPTS_PER_THREAD;
+        System.out.println(THREADS + " threads made " + attempts + " attempts on " + doctors.size() * DAYS * slots.size()
+                + " slots in " + micros / 1000 + " ms (" + attempts * 1_000_000L / micros + " attempts/s)");
+        System.out.println("Booked: " + booked + ", logged: " + logged + ", distinct slots logged: " + loggedSlots.size()
+                + ", slots the reloaded calendar disagrees on: " + mismatched);
+        if (booked.get() != logged || logged != loggedSlots.size() || mismatched != 0) {
+            System.out.println("FAILED: a slot was double-booked or a booking was lost");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package VirtualDoctor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class benchmarks ranking diagnoses: building the model, scoring complaints one at a time, scoring a
+ * batch with rankAll, and scoring through the diagnosis cache. The catalog is synthetic, with many diseases
+ * over a large vocabulary, plus a few real entries whose words end in -se and -sed.
+ * <p>
+ * It also checks that the cache ranks every complaint exactly as the knowledge base does, both on the miss
+ * that fills an entry and on the hit that reads it back. The catalog is written to a temporary file, so this
+ * can be run from any directory:
+ * <pre>
+ * javac -d out *.java stress/*.java
+ * java -cp out VirtualDoctor.DiagnosisBenchmark
+ * </pre>
+ * The exit status is 1 if the cached and the direct rankings disagree.
+ */
+public class DiagnosisBenchmark {
+    private static final int DISEASES = 5_000;
+    private static final int VOCABULARY = 3_000;
+    private static final int SYMPTOMS_PER_DISEASE = 4;
+    private static final int WORDS_PER_SYMPTOM = 2;
+    private static final int COMPLAINT_WORDS = 10;
+    private static final int SINGLE_COMPLAINTS = 20_000;
+    private static final int BATCH_COMPLAINTS = 20_000;
+    private static final int DISTINCT_CACHED_COMPLAINTS = 500; // Most complaints repeat
+    private static final int CACHED_LOOKUPS = 100_000;
+    private static final String[] CONSONANTS = {"b", "d", "f", "g", "k", "m", "p", "t", "v", "z"};
+    private static final String[] VOWELS = {"a", "o", "u"}; // Words ending in these are their own stems
+    private static final String[] REAL_ENTRIES = {
+            "bruise, confused : Contusion : Ice pack",
+            "disease of the lungs, sore chest : Pneumonia : Antibiotics",
+            "substance abuse, tense : Addiction : Counselling",
+            "loss of sense of smell : Anosmia : Rest",
+    };
+    private static final String[] REAL_COMPLAINTS = {
+            "bruise", "I have a bruise", "feeling confused", "bruised and confused",
+            "a lung disease", "abuse", "lost my sense of smell", "tense and bruised",
+    };
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args not used
+     * @throws IOException if the temporary symptoms file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        Path file = Files.createTempFile("symptoms", ".txt");
+        try {
+            run(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Writes a synthetic catalog to the given file, benchmarks ranking over it and checks the cache.
+     *
+     * @param file the symptoms file
+     * @throws IOException if the symptoms file cannot be written
+     */
+    private static void run(Path file) throws IOException {
+        Random random = new Random(42);
+        List<String> vocabulary = new ArrayList<>();
+        for (String a : syllables()) {
+            for (String b : syllables()) {
+                for (String c : syllables()) {
+                    vocabulary.add(a + b + c);
+                }
+            }
+        }
+        Collections.shuffle(vocabulary, random);
+        vocabulary = vocabulary.subList(0, VOCABULARY);
+        List<String> lines = new ArrayList<>(List.of(REAL_ENTRIES));
+        for (int d = 0; d < DISEASES; d++) {
+            List<String> symptoms = new ArrayList<>();
+            for (int s = 0; s < SYMPTOMS_PER_DISEASE; s++) {
+                symptoms.add(randomWords(random, vocabulary, WORDS_PER_SYMPTOM));
+            }
+            lines.add(String.join(", ", symptoms) + " : Disease " + d + " : Medicine " + d);
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8);
+
+        long start = System.nanoTime();
+        SymptomCatalog catalog = new SymptomCatalog(file.toString());
+        SymptomKnowledgeBase knowledgeBase = catalog.current();
+        System.out.println("Built the model for " + knowledgeBase.getEntries().size() + " diseases over "
+                + vocabulary.size() + " words in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+        List<String> complaints = new ArrayList<>(SINGLE_COMPLAINTS);
+        for (int i = 0; i < SINGLE_COMPLAINTS; i++) {
+            complaints.add(randomWords(random, vocabulary, COMPLAINT_WORDS));
+        }
+        int candidates = 0;
+        for (String complaint : complaints.subList(0, 2_000)) {
+            candidates += knowledgeBase.rank(complaint).size(); // Also warms up
+        }
+
+        start = System.nanoTime();
+        for (String complaint : complaints) {
+            knowledgeBase.rank(complaint);
+        }
+        long singleNanos = System.nanoTime() - start;
+        System.out.printf("Single: %.1f us per complaint (%d words, %d candidates on average)%n",
+                singleNanos / 1000.0 / complaints.size(), COMPLAINT_WORDS, candidates / 2_000);
+
+        List<String> batch = complaints.subList(0, BATCH_COMPLAINTS);
+        knowledgeBase.rankAll(batch); // Warms up the common pool
+        start = System.nanoTime();
+        knowledgeBase.rankAll(batch);
+        long batchNanos = System.nanoTime() - start;
+        System.out.printf("Batch: %d complaints in %d ms on %d cores (%.1f us per complaint)%n", batch.size(),
+                batchNanos / 1_000_000, Runtime.getRuntime().availableProcessors(), batchNanos / 1000.0 / batch.size());
+
+        DiagnosisCache cache = new DiagnosisCache(catalog);
+        List<String> repeated = complaints.subList(0, DISTINCT_CACHED_COMPLAINTS);
+        start = System.nanoTime();
+        for (int i = 0; i < CACHED_LOOKUPS; i++) {
+            cache.rank(repeated.get(random.nextInt(repeated.size())));
+        }
+        long cachedNanos = System.nanoTime() - start;
+        System.out.printf("Cached: %.2f us per lookup over %d distinct complaints (hit rate %.1f%%)%n",
+                cachedNanos / 1000.0 / CACHED_LOOKUPS, repeated.size(), cache.getHitRate() * 100);
+
+        // The cache must rank every complaint as the knowledge base does, on the miss and on the hit
+        DiagnosisCache checked = new DiagnosisCache(catalog);
+        List<String> checkedComplaints = new ArrayList<>(List.of(REAL_COMPLAINTS));
+        checkedComplaints.addAll(complaints.subList(0, 2_000));
+        int disagreements = 0;
+        for (String complaint : checkedComplaints) {
+            List<DiagnosisModel.Diagnosis> direct = knowledgeBase.rank(complaint);
+            for (int pass = 0; pass < 2; pass++) {
+                List<DiagnosisModel.Diagnosis> cached = checked.rank(complaint);
+                if (!sameRanking(direct, cached)) {
+                    if (disagreements++ < 10) {
+                        System.out.println("Disagreement for \"" + complaint + "\": " + direct + " vs " + cached);
+                    }
+                }
+            }
+        }
+        System.out.println("Checked " + checkedComplaints.size() + " complaints through the cache, "
+                + disagreements + " disagreements with the direct ranking");
+        if (disagreements != 0) {
+            System.out.println("FAILED: the cached and the direct rankings disagree");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Checks whether two rankings list the same diseases with the same probabilities in the same order.
+     *
+     * @param expected the direct ranking
+     * @param actual the cached ranking
+     * @return true if they agree
+     */
+    private static boolean sameRanking(List<DiagnosisModel.Diagnosis> expected, List<DiagnosisModel.Diagnosis> actual) {
+        if (expected.size() != actual.size()) {
+            return false;
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            if (!expected.get(i).getDisease().getName().equals(actual.get(i).getDisease().getName())
+                    || expected.get(i).getProbability() != actual.get(i).getProbability()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lists every syllable of a consonant and a vowel.
+     *
+     * @return the syllables
+     */
+    private static List<String> syllables() {
+        List<String> syllables = new ArrayList<>();
+        for (String consonant : CONSONANTS) {
+            for (String vowel : VOWELS) {
+                syllables.add(consonant + vowel);
+            }
+        }
+        return syllables;
+    }
+
+    /**
+     * Picks random words and joins them with spaces.
+     *
+     * @param random the random source
+     * @param vocabulary the words to pick from
+     * @param count the number of words
+     * @return the words
+     */
+    private static String randomWords(Random random, List<String> vocabulary, int count) {
+        StringBuilder words = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                words.append(' ');
+            }
+            words.append(vocabulary.get(random.nextInt(vocabulary.size())));
+        }
+        return words.toString();
+    }
+}
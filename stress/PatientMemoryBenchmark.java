@@ -0,0 +1,139 @@
+package VirtualDoctor;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * This class measures how much heap a registry of patients takes, with and without the memory-compact
+ * columnar mode. It fills the registry four ways and reports the heap in use after a full collection:
+ * Patient objects alone, a PatientColumns store with its views, and a RecordManager in its default and in its
+ * compact mode. The patients have unique names, one of 200 nationalities and an address in one of 8 cities.
+ * <p>
+ * RecordManager writes its files to the working directory, and they are deleted between the two modes, so run
+ * this from an empty directory with enough heap:
+ * <pre>
+ * javac -d out *.java stress/*.java
+ * mkdir /tmp/memory &amp;&amp; cd /tmp/memory &amp;&amp; java -Xmx2g -cp /path/to/out VirtualDoctor.PatientMemoryBenchmark
+ * </pre>
+ * The numbers are approximate: the heap is read from Runtime after asking for a few collections.
+ */
+public class PatientMemoryBenchmark {
+    private static final int PATIENTS = 1_000_000;
+    private static final int NATIONALITIES = 200;
+    private static final String[] CITIES = {"Accra", "Kumasi", "Tamale", "Takoradi", "Cape Coast", "Sunyani", "Ho", "Koforidua"};
+    private static final String[] FILES = {"patient_records.txt", "patient_records.bin", "patient_records.journal",
+            "medical_history.dat"};
+    private static final long MB = 1024 * 1024;
+
+    /**
+     * Runs the measurements.
+     *
+     * @param args not used
+     * @throws Exception if RecordManager's files cannot be deleted between the two modes
+     */
+    public static void main(String[] args) throws Exception {
+        for (String file : FILES) {
+            if (Files.exists(Paths.get(file))) {
+                System.err.println("Found " + file + " in the working directory; run this from an empty directory.");
+                System.exit(1);
+            }
+        }
+        PrintStream out = System.out;
+
+        long baseline = usedHeap();
+        List<Patient> patients = new ArrayList<>(PATIENTS);
+        for (int i = 0; i < PATIENTS; i++) {
+            patients.add(new Patient(name(i), age(i), nationality(i), address(i)));
+        }
+        out.println("Patient objects alone: " + (usedHeap() - baseline) / MB + " MB");
+        Reference.reachabilityFence(patients);
+        patients = null;
+
+        baseline = usedHeap();
+        PatientColumns columns = new PatientColumns();
+        List<Patient> views = new ArrayList<>(PATIENTS);
+        for (int i = 0; i < PATIENTS; i++) {
+            views.add(columns.add(name(i), age(i), nationality(i), address(i)));
+        }
+        out.println("Columns plus views: " + (usedHeap() - baseline) / MB + " MB");
+        Reference.reachabilityFence(columns);
+        Reference.reachabilityFence(views);
+        columns = null;
+        views = null;
+
+        for (boolean compact : new boolean[]{false, true}) {
+            baseline = usedHeap();
+            System.setOut(new PrintStream(OutputStream.nullOutputStream())); // RecordManager reports progress
+            RecordManager records = new RecordManager(compact);
+            BulkImportResult result = records.importPatients(
+                    IntStream.range(0, PATIENTS).mapToObj(i -> name(i) + "," + age(i) + "," + nationality(i) + "," + address(i)));
+            System.setOut(out);
+            out.println("RecordManager, " + (compact ? "compact" : "default") + " mode: " + (usedHeap() - baseline) / MB
+                    + " MB (" + result.getImportedCount() + " patients)");
+            Reference.reachabilityFence(records);
+            for (String file : FILES) {
+                Files.deleteIfExists(Path.of(file)); // The next mode starts from an empty registry
+            }
+        }
+    }
+
+    /**
+     * Reads the heap in use after asking for a few full collections.
+     *
+     * @return the bytes in use
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Gets the name of the i-th patient.
+     *
+     * @param i the patient number
+     * @return a unique name
+     */
+    private static String name(int i) {
+        return "Patient " + i;
+    }
+
+    /**
+     * Gets the age of the i-th patient.
+     *
+     * @param i the patient number
+     * @return an age from 0 to 99
+     */
+    private static int age(int i) {
+        return i % 100;
+    }
+
+    /**
+     * Gets the nationality of the i-th patient.
+     *
+     * @param i the patient number
+     * @return one of the nationalities
+     */
+    private static String nationality(int i) {
+        return "Nationality " + i % NATIONALITIES;
+    }
+
+    /**
+     * Gets the address of the i-th patient.
+     *
+     * @param i the patient number
+     * @return a street address in one of the cities
+     */
+    private static String address(int i) {
+        return (i % 500 + 1) + " Main Street, " + CITIES[i % CITIES.length];
+    }
+}
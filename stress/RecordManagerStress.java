@@ -0,0 +1,135 @@
+package VirtualDoctor;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is a stress check for registering patients from several front-desk terminals at once.
+ * Each thread registers its own patients into one shared RecordManager; afterwards every patient must be
+ * found in the live registry and in a RecordManager reloaded from disk, and the patient count must match.
+ * Lookup throughput is then measured with 1, 2, 4 and 8 reader threads.
+ * <p>
+ * RecordManager writes its files to the working directory, so run this from an empty directory:
+ * <pre>
+ * javac -d out *.java stress/*.java
+ * mkdir /tmp/stress &amp;&amp; cd /tmp/stress &amp;&amp; java -cp /path/to/out VirtualDoctor.RecordManagerStress
+ * </pre>
+ * The exit status is 1 if any registration was lost.
+ */
+public class RecordManagerStress {
+    private static final int THREADS = 8;
+    private static final int PATIENTS_PER_THREAD = 1500;
+    private static final int LOOKUPS_PER_THREAD = 1_000_000;
+
+    /**
+     * Runs the stress check.
+     *
+     * @param args not used
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    public static void main(String[] args) throws InterruptedException {
+        for (String file : new String[]{"patient_records.txt", "patient_records.bin", "patient_records.journal", "medical_history.dat"}) {
+            if (Files.exists(Paths.get(file))) {
+                System.err.println("Found " + file + " in the working directory; run this from an empty directory.");
+                System.exit(1);
+            }
+        }
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // RecordManager reports every registration
+
+        RecordManager records = new RecordManager();
+        int countBefore = Patient.getPatientCount();
+        ExecutorService terminals = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        long startTime = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            int terminal = t;
+            terminals.submit(() -> {
+                start.await();
+                for (int i = 0; i < PATIENTS_PER_THREAD; i++) {
+                    records.addPatientRecord(new Patient(patientName(terminal, i), 30, "Ghana", "Accra"));
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        terminals.shutdown();
+        terminals.awaitTermination(10, TimeUnit.MINUTES);
+        long registerMillis = (System.nanoTime() - startTime) / 1_000_000;
+
+        int registered = Patient.getPatientCount() - countBefore;
+        int missing = countMissing(records);
+        int missingAfterReload = countMissing(new RecordManager());
+        System.setOut(out);
+        System.out.println(THREADS + " threads registered " + registered + " patients in " + registerMillis + " ms");
+        System.out.println("Missing from the live registry: " + missing + ", after reload: " + missingAfterReload);
+
+        for (int readers = 1; readers <= THREADS; readers *= 2) {
+            System.out.println(readers + " reader threads: " + lookupsPerMillisecond(records, readers) + " lookups/ms");
+        }
+        if (registered != THREADS * PATIENTS_PER_THREAD || missing != 0 || missingAfterReload != 0) {
+            System.out.println("FAILED: registrations were lost");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Counts the registered patients that cannot be found, looking them up in a different case than they were saved in.
+     *
+     * @param records the registry to check
+     * @return the number of patients not found
+     */
+    private static int countMissing(RecordManager records) {
+        int missing = 0;
+        for (int t = 0; t < THREADS; t++) {
+            for (int i = 0; i < PATIENTS_PER_THREAD; i++) {
+                if (records.getPatientRecord(patientName(t, i).toUpperCase()) == null) {
+                    missing++;
+                }
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Measures lookup throughput with the given number of reader threads.
+     *
+     * @param records the registry to read
+     * @param readers the number of reader threads
+     * @return the lookups per millisecond across all threads
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    private static long lookupsPerMillisecond(RecordManager records, int readers) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(readers);
+        long startTime = System.nanoTime();
+        for (int t = 0; t < readers; t++) {
+            int terminal = t;
+            pool.submit(() -> {
+                for (int i = 0; i < LOOKUPS_PER_THREAD; i++) {
+                    records.getPatientRecord(patientName(terminal % THREADS, i % PATIENTS_PER_THREAD));
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.MINUTES);
+        long micros = Math.max(1, (System.nanoTime() - startTime) / 1000);
+        return (long) readers * LOOKUPS_PER_THREAD * 1000 / micros;
+    }
+
+    /**
+     * Gets the name of a test patient.
+     *
+     * @param terminal the registering thread
+     * @param number the patient's number within that thread
+     * @return the patient's name
+     */
+    private static String patientName(int terminal, int number) {
+        return "terminal" + terminal + " patient" + number;
+    }
+}